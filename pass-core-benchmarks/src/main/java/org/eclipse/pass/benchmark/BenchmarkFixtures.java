@@ -0,0 +1,159 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.pass.object.PassClient;
+import org.eclipse.pass.object.model.Funder;
+import org.eclipse.pass.object.model.Grant;
+import org.eclipse.pass.object.model.Journal;
+import org.eclipse.pass.object.model.Policy;
+import org.eclipse.pass.object.model.Publication;
+import org.eclipse.pass.object.model.Publisher;
+import org.eclipse.pass.object.model.Repository;
+import org.eclipse.pass.object.model.Submission;
+import org.eclipse.pass.object.model.User;
+import org.eclipse.pass.object.model.support.TestObjectCreator;
+
+/**
+ * Persist object graphs built from the TestObjectCreator fixtures. The relationships of those fixtures
+ * refer to objects which do not exist, so they are replaced with objects created here. Repositories,
+ * the policy, funders, and journal are shared by all graphs.
+ */
+public class BenchmarkFixtures {
+    private final PassClient client;
+    private final List<Repository> repositories;
+    private final Funder primary_funder;
+    private final Funder direct_funder;
+    private final Journal journal;
+
+    /**
+     * @param client client used to create objects
+     * @throws IOException if creating the shared objects fails
+     */
+    public BenchmarkFixtures(PassClient client) throws IOException {
+        this.client = client;
+        this.repositories = new ArrayList<>();
+
+        for (int i = 0; i < 2; i++) {
+            Repository repo = TestObjectCreator.createRepository(null);
+            repo.setRepositoryKey("repo" + i);
+            client.createObject(repo);
+            repositories.add(repo);
+        }
+
+        Policy policy = TestObjectCreator.createPolicy(null);
+        policy.setRepositories(new ArrayList<>(repositories));
+        client.createObject(policy);
+
+        this.primary_funder = create_funder("primary", policy);
+        this.direct_funder = create_funder("direct", policy);
+
+        Publisher publisher = TestObjectCreator.createPublisher(null);
+        client.createObject(publisher);
+
+        this.journal = TestObjectCreator.createJournal(null);
+        journal.setPublisher(publisher);
+        client.createObject(journal);
+    }
+
+    private Funder create_funder(String key, Policy policy) throws IOException {
+        Funder funder = TestObjectCreator.createFunder(null);
+        funder.setLocalKey(key);
+        funder.setPolicy(policy);
+        client.createObject(funder);
+
+        return funder;
+    }
+
+    /**
+     * @param key unique key of the user
+     * @return new persisted user
+     * @throws IOException if the operation fails
+     */
+    public User createUser(String key) throws IOException {
+        User user = TestObjectCreator.createUser(null);
+        user.setUsername(key);
+        user.setLocatorIds(new ArrayList<>(List.of("locator:" + key)));
+        client.createObject(user);
+
+        return user;
+    }
+
+    /**
+     * @param key local key of the grant
+     * @param pi principal investigator
+     * @param copis co-principal investigators
+     * @return new grant which is not persisted
+     */
+    public Grant newGrant(String key, User pi, List<User> copis) {
+        Grant grant = TestObjectCreator.createGrant(null);
+        grant.setLocalKey(key);
+        grant.setPi(pi);
+        grant.setCoPis(new ArrayList<>(copis));
+        grant.setPrimaryFunder(primary_funder);
+        grant.setDirectFunder(direct_funder);
+
+        return grant;
+    }
+
+    /**
+     * @param key local key of the grant
+     * @return new persisted grant with a new pi and two new co-pis
+     * @throws IOException if the operation fails
+     */
+    public Grant createGrant(String key) throws IOException {
+        User pi = createUser(key + ":pi");
+        List<User> copis = List.of(createUser(key + ":copi1"), createUser(key + ":copi2"));
+        Grant grant = newGrant(key, pi, copis);
+        client.createObject(grant);
+
+        return grant;
+    }
+
+    /**
+     * @param key submitter name of the submission
+     * @param grants number of new grants of the submission
+     * @return new persisted submission with a new publication, submitter, and preparer
+     * @throws IOException if the operation fails
+     */
+    public Submission createSubmission(String key, int grants) throws IOException {
+        Publication publication = TestObjectCreator.createPublication(null);
+        publication.setJournal(journal);
+        client.createObject(publication);
+
+        Submission submission = TestObjectCreator.createSubmission(null);
+        submission.setSubmitterName(key);
+        submission.setPublication(publication);
+        submission.setSubmitter(createUser(key + ":submitter"));
+        submission.setPreparers(new ArrayList<>(List.of(createUser(key + ":preparer"))));
+        submission.setRepositories(new ArrayList<>(repositories));
+
+        List<Grant> list = new ArrayList<>();
+
+        for (int i = 0; i < grants; i++) {
+            list.add(createGrant(key + ":grant" + i));
+        }
+
+        submission.setGrants(list);
+        client.createObject(submission);
+
+        return submission;
+    }
+}
@@ -0,0 +1,489 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.benchmark;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import com.yahoo.elide.RefreshableElide;
+import org.eclipse.pass.object.ElideDataStorePassClient;
+import org.eclipse.pass.object.PassClientBatchResult;
+import org.eclipse.pass.object.model.AggregatedDepositStatus;
+import org.eclipse.pass.object.model.AwardStatus;
+import org.eclipse.pass.object.model.Deposit;
+import org.eclipse.pass.object.model.DepositStatus;
+import org.eclipse.pass.object.model.EventType;
+import org.eclipse.pass.object.model.Funder;
+import org.eclipse.pass.object.model.Grant;
+import org.eclipse.pass.object.model.IntegrationType;
+import org.eclipse.pass.object.model.Journal;
+import org.eclipse.pass.object.model.PassEntity;
+import org.eclipse.pass.object.model.PerformerRole;
+import org.eclipse.pass.object.model.PmcParticipation;
+import org.eclipse.pass.object.model.Policy;
+import org.eclipse.pass.object.model.Publication;
+import org.eclipse.pass.object.model.Publisher;
+import org.eclipse.pass.object.model.Repository;
+import org.eclipse.pass.object.model.Source;
+import org.eclipse.pass.object.model.Submission;
+import org.eclipse.pass.object.model.SubmissionEvent;
+import org.eclipse.pass.object.model.SubmissionStatus;
+import org.eclipse.pass.object.model.User;
+import org.eclipse.pass.object.model.UserRole;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+
+/**
+ * Generate a synthetic dataset for scale testing. At scale 1 there are 10,000 users, 5,000 grants, and 20,000
+ * publications and submissions. Each submission has one to three deposits and two to five events.
+ * <p>
+ * The dataset depends only on the seed and scale. Each object is generated from a random number generator seeded
+ * by the seed, the phase, and the index of the object so the result does not depend on how the work is scheduled.
+ * The ids assigned by the database may differ between runs.
+ * <p>
+ * Objects are written in phases ordered by their relationships. Each phase is split into chunks which are created
+ * in parallel, each chunk in one transaction with Hibernate batching the inserts. Relationships to objects of
+ * earlier phases are set with objects which only have an id.
+ */
+public class DatasetGenerator {
+    private static final Logger LOG = LoggerFactory.getLogger(DatasetGenerator.class);
+
+    private static final int CHUNK_SIZE = 1000;
+    private static final ZonedDateTime START_DATE = ZonedDateTime.of(2018, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final int DATE_RANGE_DAYS = 5 * 365;
+
+    private static final String[] FIRST_NAMES = { "Ada", "Alan", "Barbara", "Claude", "Edsger", "Frances",
+        "Grace", "John", "Katherine", "Leslie", "Margaret", "Niklaus", "Radia", "Tim" };
+    private static final String[] LAST_NAMES = { "Allen", "Backus", "Dijkstra", "Hamilton", "Hopper", "Johnson",
+        "Knuth", "Lamport", "Liskov", "Lovelace", "Perlman", "Shannon", "Turing", "Wirth" };
+    private static final String[] WORDS = { "adaptive", "analysis", "cellular", "clinical", "dynamics", "genomic",
+        "imaging", "immune", "models", "networks", "neural", "outcomes", "protein", "response", "signaling",
+        "structure", "therapy", "variation" };
+
+    private static final int REPOSITORIES = 10;
+    private static final int POLICIES = 5;
+    private static final int FUNDERS = 20;
+    private static final int PUBLISHERS = 50;
+
+    private final RefreshableElide elide;
+    private final long seed;
+    private final double scale;
+    private final ExecutorService executor;
+
+    private long[] repositories;
+    private long[] policies;
+    private long[] funders;
+    private long[] publishers;
+    private long[] journals;
+    private long[] users;
+    private long[] grants;
+    private long[] publications;
+    private long[] submissions;
+    private int[][] submission_repositories;
+
+    /**
+     * Factory of the objects at an index of a phase.
+     *
+     * @param <T> type of objects
+     */
+    private interface Factory<T extends PassEntity> {
+        List<T> create(int index, SplittableRandom random);
+    }
+
+    /**
+     * @param elide Elide used to write the objects
+     * @param seed seed of the dataset
+     * @param scale factor multiplying the number of objects
+     * @param threads number of chunks written concurrently
+     */
+    public DatasetGenerator(RefreshableElide elide, long seed, double scale, int threads) {
+        if (scale <= 0) {
+            throw new IllegalArgumentException("Scale must be positive: " + scale);
+        }
+
+        this.elide = elide;
+        this.seed = seed;
+        this.scale = scale;
+        this.executor = Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * Write the dataset. The executor is shut down afterwards.
+     *
+     * @throws IOException if writing objects fails
+     */
+    public void generate() throws IOException {
+        try {
+            repositories = write("repository", 0, REPOSITORIES, this::create_repository);
+            policies = write("policy", 1, POLICIES, this::create_policy);
+            funders = write("funder", 2, FUNDERS, this::create_funder);
+            publishers = write("publisher", 3, PUBLISHERS, this::create_publisher);
+            journals = write("journal", 4, scaled(2000), this::create_journal);
+            users = write("user", 5, scaled(10000), this::create_user);
+            grants = write("grant", 6, scaled(5000), this::create_grant);
+            publications = write("publication", 7, scaled(20000), this::create_publication);
+            submission_repositories = new int[publications.length][];
+            submissions = write("submission", 8, publications.length, this::create_submission);
+            write("deposit", 9, submissions.length, this::create_deposits);
+            write("submissionEvent", 10, submissions.length, this::create_events);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private int scaled(int count) {
+        return Math.max(1, (int) Math.round(count * scale));
+    }
+
+    /**
+     * Write the objects of a phase in parallel chunks.
+     *
+     * @return ids of the written objects in index order
+     */
+    private <T extends PassEntity> long[] write(String type, int phase, int count, Factory<T> factory)
+            throws IOException {
+        long start = System.nanoTime();
+        List<Future<List<T>>> chunks = new ArrayList<>();
+
+        for (int i = 0; i < count; i += CHUNK_SIZE) {
+            int from = i;
+            int to = Math.min(count, i + CHUNK_SIZE);
+
+            chunks.add(executor.submit(() -> write_chunk(phase, from, to, factory)));
+        }
+
+        List<T> objs = new ArrayList<>();
+
+        for (Future<List<T>> chunk : chunks) {
+            try {
+                objs.addAll(chunk.get());
+            } catch (ExecutionException e) {
+                chunks.forEach(c -> c.cancel(true));
+
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+
+                throw new IOException("Failed to write " + type, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted writing " + type, e);
+            }
+        }
+
+        LOG.info("Wrote {} {} objects in {} ms", objs.size(), type, (System.nanoTime() - start) / 1000000);
+
+        return objs.stream().mapToLong(PassEntity::getId).toArray();
+    }
+
+    private <T extends PassEntity> List<T> write_chunk(int phase, int from, int to, Factory<T> factory)
+            throws IOException {
+        List<T> objs = new ArrayList<>();
+
+        for (int i = from; i < to; i++) {
+            objs.addAll(factory.create(i, random(phase, i)));
+        }
+
+        try (ElideDataStorePassClient client = new ElideDataStorePassClient(elide)) {
+            client.setBatchSize(objs.size());
+
+            PassClientBatchResult result = client.createObjects(objs);
+
+            if (!result.isSuccess()) {
+                throw result.getFailures().values().iterator().next();
+            }
+        }
+
+        return objs;
+    }
+
+    private SplittableRandom random(int phase, int index) {
+        long value = seed;
+        value = value * 0x9E3779B97F4A7C15L + phase;
+        value = value * 0x9E3779B97F4A7C15L + index;
+
+        return new SplittableRandom(value);
+    }
+
+    private static <T extends PassEntity> T ref(Supplier<T> constructor, long id) {
+        T result = constructor.get();
+        result.setId(id);
+        return result;
+    }
+
+    private static <T extends PassEntity> List<T> refs(Supplier<T> constructor, long[] ids, int[] indexes) {
+        List<T> result = new ArrayList<>();
+
+        for (int index : indexes) {
+            result.add(ref(constructor, ids[index]));
+        }
+
+        return result;
+    }
+
+    /**
+     * @return between min and max distinct indexes less than bound
+     */
+    private static int[] pick(SplittableRandom random, int min, int max, int bound) {
+        return random.ints(0, bound).distinct().limit(Math.min(bound, random.nextInt(min, max + 1))).toArray();
+    }
+
+    private static <E> E pick(SplittableRandom random, E[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String words(SplittableRandom random, int count) {
+        StringBuilder result = new StringBuilder();
+
+        for (int i = 0; i < count; i++) {
+            if (i > 0) {
+                result.append(' ');
+            }
+
+            result.append(pick(random, WORDS));
+        }
+
+        return result.toString();
+    }
+
+    private static ZonedDateTime date(SplittableRandom random) {
+        return START_DATE.plusDays(random.nextInt(DATE_RANGE_DAYS)).plusSeconds(random.nextInt(86400));
+    }
+
+    private List<Repository> create_repository(int index, SplittableRandom random) {
+        Repository repo = new Repository();
+        repo.setName("Repository " + index);
+        repo.setDescription(words(random, 8));
+        repo.setUrl(URI.create("https://repository" + index + ".example.org"));
+        repo.setAgreementText(words(random, 40));
+        repo.setIntegrationType(pick(random, IntegrationType.values()));
+        repo.setRepositoryKey("repository" + index);
+        repo.setSchemas(new ArrayList<>(List.of(URI.create("https://example.org/schemas/common.json"))));
+
+        return List.of(repo);
+    }
+
+    private List<Policy> create_policy(int index, SplittableRandom random) {
+        Policy policy = new Policy();
+        policy.setTitle("Policy " + index);
+        policy.setDescription(words(random, 20));
+        policy.setPolicyUrl(URI.create("https://example.org/policies/" + index));
+        policy.setInstitution(URI.create("https://example.org"));
+        policy.setRepositories(refs(Repository::new, repositories, pick(random, 1, 3, repositories.length)));
+
+        return List.of(policy);
+    }
+
+    private List<Funder> create_funder(int index, SplittableRandom random) {
+        Funder funder = new Funder();
+        funder.setName("Funder " + index);
+        funder.setUrl(URI.create("https://funder" + index + ".example.org"));
+        funder.setLocalKey("funder" + index);
+        funder.setPolicy(ref(Policy::new, policies[random.nextInt(policies.length)]));
+
+        return List.of(funder);
+    }
+
+    private List<Publisher> create_publisher(int index, SplittableRandom random) {
+        Publisher publisher = new Publisher();
+        publisher.setName("Publisher " + index);
+        publisher.setPmcParticipation(pick(random, PmcParticipation.values()));
+
+        return List.of(publisher);
+    }
+
+    private List<Journal> create_journal(int index, SplittableRandom random) {
+        Journal journal = new Journal();
+        journal.setJournalName("Journal of " + words(random, 2));
+        journal.setIssns(new ArrayList<>(List.of(String.format("Print:%04d-%04d", index / 10000, index % 10000))));
+        journal.setNlmta("J" + index);
+        journal.setPmcParticipation(pick(random, PmcParticipation.values()));
+        journal.setPublisher(ref(Publisher::new, publishers[random.nextInt(publishers.length)]));
+
+        return List.of(journal);
+    }
+
+    private List<User> create_user(int index, SplittableRandom random) {
+        String first = pick(random, FIRST_NAMES);
+        String last = pick(random, LAST_NAMES);
+
+        User user = new User();
+        user.setUsername("user" + index);
+        user.setFirstName(first);
+        user.setLastName(last);
+        user.setDisplayName(first + " " + last);
+        user.setEmail("user" + index + "@example.org");
+        user.getAffiliation().add("example.org");
+        user.setLocatorIds(new ArrayList<>(List.of("example.org:eppn:user" + index,
+                "example.org:employeeid:" + (100000 + index))));
+        user.setOrcidId(String.format("https://orcid.org/0000-0000-%04d-%04d", index / 10000, index % 10000));
+        user.setRoles(new ArrayList<>(List.of(random.nextInt(1000) == 0 ? UserRole.ADMIN : UserRole.SUBMITTER)));
+
+        return List.of(user);
+    }
+
+    private List<Grant> create_grant(int index, SplittableRandom random) {
+        ZonedDateTime award_date = date(random);
+        int pi = random.nextInt(users.length);
+
+        Grant grant = new Grant();
+        grant.setAwardNumber("AWD" + (1000000 + index));
+        grant.setAwardStatus(random.nextInt(10) < 8 ? AwardStatus.ACTIVE : pick(random, AwardStatus.values()));
+        grant.setLocalKey("grant" + index);
+        grant.setProjectName(words(random, 5));
+        grant.setPrimaryFunder(ref(Funder::new, funders[random.nextInt(funders.length)]));
+        grant.setDirectFunder(ref(Funder::new, funders[random.nextInt(funders.length)]));
+        grant.setPi(ref(User::new, users[pi]));
+        grant.setCoPis(refs(User::new, users, random.ints(0, users.length).filter(i -> i != pi).distinct()
+                .limit(random.nextInt(4)).toArray()));
+        grant.setAwardDate(award_date);
+        grant.setStartDate(award_date.plusDays(random.nextInt(90)));
+        grant.setEndDate(grant.getStartDate().plusYears(1 + random.nextInt(5)));
+
+        return List.of(grant);
+    }
+
+    private List<Publication> create_publication(int index, SplittableRandom random) {
+        Publication pub = new Publication();
+        pub.setTitle(words(random, 3 + random.nextInt(8)));
+        pub.setPublicationAbstract(words(random, 50 + random.nextInt(100)));
+        pub.setDoi("10.5555/synthetic." + index);
+        pub.setPmid(String.valueOf(30000000 + index));
+        pub.setJournal(ref(Journal::new, journals[random.nextInt(journals.length)]));
+        pub.setVolume(String.valueOf(1 + random.nextInt(50)));
+        pub.setIssue(String.valueOf(1 + random.nextInt(12)));
+
+        return List.of(pub);
+    }
+
+    private List<Submission> create_submission(int index, SplittableRandom random) {
+        SubmissionStatus status = pick(random, SubmissionStatus.values());
+        boolean submitted = status == SubmissionStatus.SUBMITTED || status == SubmissionStatus.COMPLETE;
+        int[] repos = pick(random, 1, 2, repositories.length);
+
+        Submission sub = new Submission();
+        sub.setMetadata("{\"title\": \"" + words(random, 4) + "\"}");
+        sub.setSource(random.nextInt(10) < 9 ? Source.PASS : Source.OTHER);
+        sub.setSubmitted(submitted);
+        sub.setSubmittedDate(submitted ? date(random) : null);
+        sub.setSubmissionStatus(status);
+        sub.setAggregatedDepositStatus(submitted ? pick(random, AggregatedDepositStatus.values())
+                : AggregatedDepositStatus.NOT_STARTED);
+        sub.setPublication(ref(Publication::new, publications[index]));
+        sub.setRepositories(refs(Repository::new, repositories, repos));
+        sub.setSubmitter(ref(User::new, users[random.nextInt(users.length)]));
+        sub.setPreparers(refs(User::new, users, pick(random, 0, 2, users.length)));
+        sub.setGrants(refs(Grant::new, grants, pick(random, 1, 4, grants.length)));
+        sub.setEffectivePolicies(refs(Policy::new, policies, pick(random, 1, 2, policies.length)));
+
+        submission_repositories[index] = repos;
+
+        return List.of(sub);
+    }
+
+    /**
+     * @return a deposit to each repository of the submission and sometimes a failed earlier attempt
+     */
+    private List<Deposit> create_deposits(int index, SplittableRandom random) {
+        List<Deposit> result = new ArrayList<>();
+        int[] repos = submission_repositories[index];
+
+        for (int i = 0; i < repos.length; i++) {
+            boolean retried = result.size() + repos.length - i < 3 && random.nextInt(4) == 0;
+
+            if (retried) {
+                result.add(create_deposit(index, repos[i], DepositStatus.FAILED));
+            }
+
+            result.add(create_deposit(index, repos[i], pick(random, DepositStatus.values())));
+        }
+
+        return result;
+    }
+
+    private Deposit create_deposit(int submission, int repository, DepositStatus status) {
+        Deposit deposit = new Deposit();
+        deposit.setDepositStatus(status);
+        deposit.setDepositStatusRef("https://repository" + repository + ".example.org/deposits/" + submission);
+        deposit.setSubmission(ref(Submission::new, submissions[submission]));
+        deposit.setRepository(ref(Repository::new, repositories[repository]));
+
+        return deposit;
+    }
+
+    /**
+     * @return two to five events ordered in time
+     */
+    private List<SubmissionEvent> create_events(int index, SplittableRandom random) {
+        List<SubmissionEvent> result = new ArrayList<>();
+        ZonedDateTime date = date(random);
+        int count = 2 + random.nextInt(4);
+
+        for (int i = 0; i < count; i++) {
+            date = date.plusHours(1 + random.nextInt(72));
+
+            SubmissionEvent event = new SubmissionEvent();
+            event.setEventType(i == count - 1 ? EventType.SUBMITTED : pick(random, EventType.values()));
+            event.setPerformedDate(date);
+            event.setPerformedBy(ref(User::new, users[random.nextInt(users.length)]));
+            event.setPerformerRole(pick(random, PerformerRole.values()));
+            event.setSubmission(ref(Submission::new, submissions[index]));
+            event.setComment(words(random, random.nextInt(10)));
+            event.setLink(URI.create("https://example.org/submissions/" + index));
+            result.add(event);
+        }
+
+        return result;
+    }
+
+    /**
+     * Generate a dataset in the database configured for the benchmark application. The properties generator.seed,
+     * generator.scale, and generator.threads configure the generator. Other properties such as
+     * spring.datasource.url select the database.
+     *
+     * @param args Spring Boot arguments
+     * @throws IOException if writing objects fails
+     */
+    public static void main(String[] args) throws IOException {
+        try (ConfigurableApplicationContext context = SpringApplication.run(BenchmarkApplication.class, args)) {
+            Environment env = context.getEnvironment();
+            long seed = env.getProperty("generator.seed", Long.class, 1L);
+            double scale = env.getProperty("generator.scale", Double.class, 1.0);
+            int threads = env.getProperty("generator.threads", Integer.class,
+                    Runtime.getRuntime().availableProcessors());
+
+            LOG.info("Generating dataset with seed {} and scale {} using {} threads", seed, scale, threads);
+            long start = System.nanoTime();
+
+            new DatasetGenerator(context.getBean(RefreshableElide.class), seed, scale, threads).generate();
+
+            LOG.info("Generated dataset in {} s", (System.nanoTime() - start) / 1000000000);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import com.yahoo.elide.RefreshableElide;
+import org.eclipse.pass.object.ElideDataStorePassClient;
+import org.eclipse.pass.object.ElidePassClient;
+import org.eclipse.pass.object.PassClient;
+import org.eclipse.pass.object.PassClientSelector;
+import org.eclipse.pass.object.PassFilter;
+import org.eclipse.pass.object.model.AwardStatus;
+import org.eclipse.pass.object.model.Grant;
+import org.eclipse.pass.object.model.Submission;
+import org.eclipse.pass.object.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Compare the PassClient implementations on H2 for common operations. Each trial starts the
+ * application and creates submissions, each with its own publication, users, and grants.
+ *
+ * Write machine readable results with the JMH options -rf json -rff results.json.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PassClientBenchmark {
+    @Param({"elide", "elide-direct", "datastore"})
+    private String client;
+
+    @Param({"100"})
+    private int submissions;
+
+    @Param({"2", "10"})
+    private int grants;
+
+    private final AtomicLong counter = new AtomicLong();
+    private ConfigurableApplicationContext context;
+    private PassClient pass_client;
+    private List<Long> submission_ids;
+    private List<Long> grant_ids;
+    private BenchmarkFixtures fixtures;
+    private User pi;
+    private List<User> copis;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        context = SpringApplication.run(BenchmarkApplication.class);
+        RefreshableElide elide = context.getBean(RefreshableElide.class);
+
+        // Read transactions per operation so the session does not grow over the trial
+        if (client.equals("datastore")) {
+            pass_client = new ElideDataStorePassClient(elide, true);
+        } else {
+            ElidePassClient elide_client = new ElidePassClient(elide, new com.yahoo.elide.core.security.User(null),
+                    true);
+            elide_client.setDirect(client.equals("elide-direct"));
+            pass_client = elide_client;
+        }
+
+        fixtures = new BenchmarkFixtures(pass_client);
+        submission_ids = new ArrayList<>();
+        grant_ids = new ArrayList<>();
+
+        for (int i = 0; i < submissions; i++) {
+            Submission sub = fixtures.createSubmission("submitter" + i, grants);
+
+            submission_ids.add(sub.getId());
+            sub.getGrants().forEach(g -> grant_ids.add(g.getId()));
+        }
+
+        pi = fixtures.createUser("pi");
+        copis = List.of(fixtures.createUser("copi1"), fixtures.createUser("copi2"));
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws IOException {
+        pass_client.close();
+        context.close();
+    }
+
+    private static Long random(List<Long> ids) {
+        return ids.get(ThreadLocalRandom.current().nextInt(ids.size()));
+    }
+
+    @Benchmark
+    public Grant create() throws IOException {
+        Grant grant = fixtures.newGrant("create" + counter.incrementAndGet(), pi, copis);
+        pass_client.createObject(grant);
+
+        return grant;
+    }
+
+    @Benchmark
+    public Submission get() throws IOException {
+        return pass_client.getObject(Submission.class, random(submission_ids));
+    }
+
+    @Benchmark
+    public List<Submission> selectWithFilter() throws IOException {
+        String submitter = "submitter" + ThreadLocalRandom.current().nextInt(submissions);
+
+        PassClientSelector<Submission> selector = new PassClientSelector<>(Submission.class);
+        selector.setFilter(PassFilter.field(Submission.class, "submitterName").eq(submitter));
+        selector.setInclude(List.of("grants.pi", "grants.coPis"));
+
+        return pass_client.selectObjects(selector).getObjects();
+    }
+
+    @Benchmark
+    public long stream() throws IOException {
+        PassClientSelector<Grant> selector = new PassClientSelector<>(Grant.class);
+        selector.setFilter(PassFilter.field(Grant.class, "awardStatus").eq(AwardStatus.ACTIVE));
+
+        try (Stream<Grant> stream = pass_client.streamObjects(selector)) {
+            return stream.count();
+        }
+    }
+
+    // The relationships of a detached grant must be loaded for it to be written back whole
+    @Benchmark
+    public Grant update() throws IOException {
+        PassClientSelector<Grant> selector = new PassClientSelector<>(Grant.class);
+        selector.setFilter(PassFilter.field(Grant.class, "id").eq(random(grant_ids)));
+        selector.setInclude(List.of("coPis"));
+
+        Grant grant = pass_client.selectObjects(selector).getObjects().get(0);
+        grant.setProjectName("project " + counter.incrementAndGet());
+        pass_client.updateObject(grant);
+
+        return grant;
+    }
+
+    @Benchmark
+    public Grant updateFields() throws IOException {
+        Grant grant = pass_client.getObject(Grant.class, random(grant_ids));
+        grant.setProjectName("project " + counter.incrementAndGet());
+        pass_client.updateFields(grant, Set.of("projectName"));
+
+        return grant;
+    }
+}
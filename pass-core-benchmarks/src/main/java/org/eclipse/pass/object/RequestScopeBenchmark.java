@@ -0,0 +1,97 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.object;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import com.yahoo.elide.ElideSettings;
+import com.yahoo.elide.ElideSettingsBuilder;
+import com.yahoo.elide.annotation.Include;
+import com.yahoo.elide.core.RequestScope;
+import com.yahoo.elide.core.dictionary.EntityDictionary;
+import com.yahoo.elide.core.request.EntityProjection;
+import com.yahoo.elide.core.type.ClassType;
+import com.yahoo.elide.core.utils.DefaultClassScanner;
+import org.eclipse.pass.object.model.Submission;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compare the per call RequestScope and projection setup the clients used to do with RequestScopeFactory
+ * at a high call rate from many threads. The previous setup generates a request id with
+ * UUID.randomUUID(), looks up the API version, and builds the path and projection every time.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(8)
+public class RequestScopeBenchmark {
+    private ElideSettings settings;
+    private RequestScopeFactory scopes;
+
+    @Setup
+    public void setup() {
+        EntityDictionary dict = EntityDictionary.builder().build();
+
+        for (Class<?> cls : new DefaultClassScanner().getAnnotatedClasses(Submission.class.getPackageName(),
+                Include.class)) {
+            dict.bindEntity(ClassType.of(cls));
+        }
+
+        settings = new ElideSettingsBuilder(null).withEntityDictionary(dict).build();
+        scopes = new RequestScopeFactory(settings, null);
+    }
+
+    @Benchmark
+    public void uncached(Blackhole bh) {
+        String path = "/" + EntityDictionary.getEntityName(ClassType.of(Submission.class)) + "/" + 1L;
+        String version = settings.getDictionary().getApiVersions().iterator().next();
+
+        bh.consume(new RequestScope(settings.getBaseUrl(), path, version, null, null, null, null, null,
+                UUID.randomUUID(), settings));
+        bh.consume(EntityProjection.builder().type(Submission.class).build());
+    }
+
+    @Benchmark
+    public void factory(Blackhole bh) {
+        bh.consume(scopes.create(RequestScopeFactory.getPath(Submission.class, 1L), null));
+        bh.consume(RequestScopeFactory.getProjection(Submission.class));
+    }
+
+    @Benchmark
+    public UUID secureRequestId() {
+        return UUID.randomUUID();
+    }
+
+    @Benchmark
+    public UUID requestId() {
+        return RequestScopeFactory.nextRequestId();
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.object;
+
+import java.net.URI;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.yahoo.elide.annotation.Include;
+import com.yahoo.elide.core.dictionary.EntityDictionary;
+import com.yahoo.elide.core.type.ClassType;
+import com.yahoo.elide.core.utils.DefaultClassScanner;
+import com.yahoo.elide.jsonapi.models.Data;
+import com.yahoo.elide.jsonapi.models.Relationship;
+import com.yahoo.elide.jsonapi.models.Resource;
+import com.yahoo.elide.jsonapi.models.ResourceIdentifier;
+import org.eclipse.pass.object.model.AggregatedDepositStatus;
+import org.eclipse.pass.object.model.Grant;
+import org.eclipse.pass.object.model.PassEntity;
+import org.eclipse.pass.object.model.Publication;
+import org.eclipse.pass.object.model.Repository;
+import org.eclipse.pass.object.model.Source;
+import org.eclipse.pass.object.model.Submission;
+import org.eclipse.pass.object.model.SubmissionStatus;
+import org.eclipse.pass.object.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compare converting a Submission to a JSON:API resource with the reflective EntityDictionary lookups
+ * ElidePassClient used to do and with the precompiled accessors it uses now.
+ * Run with -prof gc to compare allocation rates.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResourceBenchmark {
+    @Param({"1", "20"})
+    private int grants;
+
+    private EntityDictionary dict;
+    private PassEntityAccessors accessors;
+    private Submission submission;
+
+    @Setup
+    public void setup() {
+        dict = EntityDictionary.builder().build();
+
+        for (Class<?> cls : new DefaultClassScanner().getAnnotatedClasses(Submission.class.getPackageName(),
+                Include.class)) {
+            dict.bindEntity(ClassType.of(cls));
+        }
+
+        accessors = PassEntityAccessors.of(dict);
+
+        submission = new Submission();
+        submission.setId(1L);
+        submission.setAggregatedDepositStatus(AggregatedDepositStatus.NOT_STARTED);
+        submission.setSubmissionStatus(SubmissionStatus.SUBMITTED);
+        submission.setSource(Source.PASS);
+        submission.setSubmitted(true);
+        submission.setSubmittedDate(ZonedDateTime.now());
+        submission.setSubmitterName("Bessie");
+        submission.setSubmitterEmail(URI.create("mailto:bessie@example.com"));
+        submission.setMetadata("{\"title\": \"Moo\"}");
+
+        Publication publication = new Publication();
+        publication.setId(2L);
+        submission.setPublication(publication);
+
+        User submitter = new User();
+        submitter.setId(3L);
+        submission.setSubmitter(submitter);
+
+        Repository repo = new Repository();
+        repo.setId(4L);
+        submission.setRepositories(List.of(repo));
+
+        List<Grant> list = new ArrayList<>();
+
+        for (int i = 0; i < grants; i++) {
+            Grant grant = new Grant();
+            grant.setId(100L + i);
+            list.add(grant);
+        }
+
+        submission.setGrants(list);
+    }
+
+    @Benchmark
+    public Resource reflective() {
+        return reflective_resource(submission);
+    }
+
+    @Benchmark
+    public Resource accessors() {
+        return accessors.toResource(submission, null);
+    }
+
+    // Conversion as previously done by ElidePassClient
+    private Resource reflective_resource(PassEntity obj) {
+        String typeName = EntityDictionary.getEntityName(ClassType.of(obj.getClass()));
+        Resource resource = new Resource(typeName, obj.getId().toString());
+        Map<String, Relationship> relationships = new HashMap<>();
+
+        for (String name : dict.getRelationships(obj)) {
+            Object value = dict.getValue(obj, name, null);
+            Data<Resource> data;
+
+            if (value == null) {
+                data = new Data<>((Resource) null);
+            } else if (value instanceof List) {
+                List<Resource> targets = new ArrayList<>();
+
+                for (Object o : List.class.cast(value)) {
+                    targets.add(reflective_identifier(PassEntity.class.cast(o)));
+                }
+
+                data = new Data<>(targets);
+            } else {
+                data = new Data<>(reflective_identifier(PassEntity.class.cast(value)));
+            }
+
+            relationships.put(name, new Relationship(null, data));
+        }
+
+        resource.setRelationships(relationships);
+
+        Map<String, Object> attributes = new HashMap<>();
+
+        for (String name : dict.getAttributes(obj)) {
+            attributes.put(name, dict.getValue(obj, name, null));
+        }
+
+        resource.setAttributes(attributes);
+
+        return resource;
+    }
+
+    private static Resource reflective_identifier(PassEntity entity) {
+        String target_type = EntityDictionary.getEntityName(ClassType.of(entity.getClass()));
+
+        return new ResourceIdentifier(target_type, entity.getId().toString()).castToResource();
+    }
+}
@@ -29,11 +29,11 @@ import javax.json.JsonArray;
 import javax.json.JsonObject;
 
 import com.yahoo.elide.RefreshableElide;
-import org.eclipse.pass.object.ElideDataStorePassClient;
+import org.eclipse.pass.object.CachingPassClient;
 import org.eclipse.pass.object.PassClient;
 import org.eclipse.pass.object.PassClientResult;
 import org.eclipse.pass.object.PassClientSelector;
-import org.eclipse.pass.object.RSQL;
+import org.eclipse.pass.object.PassFilter;
 import org.eclipse.pass.object.model.Journal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -53,8 +53,13 @@ public class ElideConnector {
         this.refreshableElide = refreshableElide;
     }
 
+    /**
+     * Journals are cached, so updates go through the cache to invalidate it here and on other nodes.
+     *
+     * @return new client
+     */
     protected PassClient getNewClient() {
-        return new ElideDataStorePassClient(refreshableElide);
+        return new CachingPassClient(PassClient.newMeteredInstance(refreshableElide));
     }
 
     /**
@@ -190,8 +195,9 @@ public class ElideConnector {
             // we don't have this journal in pass yet
             if (name != null && !name.isEmpty() && issns.size() > 0) {
                 // but we have enough info to make a Journal entry
+                // creating the journal sets its id so there is no need to find it again
                 passClient.createObject(journal);
-                passJournal = new Journal(find(name, issns, passClient));
+                passJournal = journal;
             } else {
                 // do not have enough to create a new journal
                 LOG.debug("Not enough info for journal " + name);
@@ -231,9 +237,9 @@ public class ElideConnector {
         List<Journal> foundList = new ArrayList<>();
 
         //look for journals with this name
-        String filter = RSQL.equals("journalName", name);
-        PassClientResult<Journal> result = passClient.
-            selectObjects(new PassClientSelector<>(Journal.class, 0, 100, filter, null));
+        PassClientSelector<Journal> selector = new PassClientSelector<>(Journal.class, 0, 100, null, null);
+        selector.setFilter(PassFilter.field(Journal.class, "journalName").eq(name));
+        PassClientResult<Journal> result = passClient.selectObjects(selector);
         foundList.addAll(result.getObjects());
 
         //commenting this out until we get a search filter that works for finding a string in a list of strings
@@ -24,8 +24,11 @@ import java.util.Objects;
 import javax.json.Json;
 import javax.json.JsonObject;
 import javax.json.JsonReader;
+import javax.json.JsonString;
 import javax.json.stream.JsonParsingException;
 
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import okhttp3.Call;
 import okhttp3.Headers;
 import okhttp3.HttpUrl;
@@ -60,6 +63,32 @@ public class ExternalDoiServiceConnector {
      * @return a string representing the works object if successful; an empty string if not found; null if IO exception
      */
     JsonObject retrieveMetadata(String doi, ExternalDoiService service) {
+        Timer.Sample sample = Timer.start(Metrics.globalRegistry);
+        JsonObject result = retrieve_metadata(doi, service);
+
+        sample.stop(Timer.builder("pass.doi.external.requests")
+                         .description("Latency of requests to external DOI services")
+                         .tags("service", service.name(), "outcome", outcome(result))
+                         .publishPercentileHistogram()
+                         .register(Metrics.globalRegistry));
+
+        return result;
+    }
+
+    // A response which is not JSON is returned as an error string
+    private static String outcome(JsonObject result) {
+        if (result == null) {
+            return "error";
+        }
+
+        if (result.get("error") instanceof JsonString) {
+            return "Resource not found.".equals(result.getString("error")) ? "not_found" : "invalid";
+        }
+
+        return "success";
+    }
+
+    private JsonObject retrieve_metadata(String doi, ExternalDoiService service) {
         LOG.debug("Attempting to retrieve " + service.name() + "metadata for doi " + doi);
 
         HttpUrl.Builder urlBuilder = Objects.requireNonNull(HttpUrl.parse(service.baseUrl() + doi)).newBuilder();
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.main;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.jms.ConnectionFactory;
+import javax.jms.JMSException;
+import javax.jms.TextMessage;
+
+import com.yahoo.elide.RefreshableElide;
+import com.yahoo.elide.core.dictionary.EntityDictionary;
+import com.yahoo.elide.core.type.ClassType;
+import com.yahoo.elide.core.type.Type;
+import org.eclipse.pass.object.PassEntityCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jms.annotation.JmsListener;
+import org.springframework.jms.core.JmsTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publish the type and id of every object invalidated in the default {@link PassEntityCache} to a JMS topic
+ * so that caches on other nodes can evict them. The {@link org.eclipse.pass.object.PassEntityCacheInvalidator}
+ * invalidates every PASS object whose change is committed, so this covers every write whether it is made
+ * through the JSON:API or a PassClient. Changes are coalesced for a short interval and sent as one message.
+ * Messages from other nodes evict objects from the default cache without being sent again.
+ *
+ * Messages are sent and received as a topic without changing the JMS defaults of the application.
+ *
+ * Nodes must share a networked broker for invalidations to reach each other. The embedded broker
+ * only reaches the local node.
+ */
+@Component
+@ConditionalOnProperty(prefix = "pass.cache-invalidation", name = "enabled", havingValue = "true",
+        matchIfMissing = true)
+public class CacheInvalidationBus implements PassEntityCache.Listener {
+    private static final Logger LOG = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    /**
+     * Message property identifying the node which sent an invalidation.
+     */
+    public static final String NODE_PROPERTY = "node";
+
+    private final String node;
+    private final JmsTemplate jms;
+    private final EntityDictionary dictionary;
+    private final CacheInvalidationProperties properties;
+    private final PassEntityCache cache;
+    private final ScheduledExecutorService executor;
+    private final Set<String> pending;
+
+    public CacheInvalidationBus(ConnectionFactory connectionFactory, RefreshableElide refreshableElide,
+            CacheInvalidationProperties properties) {
+        this.node = UUID.randomUUID().toString();
+        this.jms = new JmsTemplate(connectionFactory);
+        this.jms.setPubSubDomain(true);
+        this.dictionary = refreshableElide.getElide().getElideSettings().getDictionary();
+        this.properties = properties;
+        this.cache = PassEntityCache.getDefault();
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pass-cache-invalidation");
+            t.setDaemon(true);
+            return t;
+        });
+        this.pending = new LinkedHashSet<>();
+    }
+
+    /**
+     * Listen for invalidations in the default cache.
+     */
+    @PostConstruct
+    public void bind() {
+        cache.addListener(this);
+    }
+
+    /**
+     * Send any pending invalidations and stop.
+     */
+    @PreDestroy
+    public void close() {
+        cache.removeListener(this);
+        executor.shutdown();
+        flush();
+    }
+
+    /**
+     * @return Topic invalidations are sent to
+     */
+    public String getTopic() {
+        return properties.getTopic();
+    }
+
+    @Override
+    public void invalidated(Class<?> type, Long id) {
+        publish(type, id);
+    }
+
+    /**
+     * Queue an invalidation. The first invalidation queued schedules a message with all the invalidations
+     * queued during the coalesce interval.
+     *
+     * @param type Type of the object
+     * @param id Identifier of the object
+     */
+    public void publish(Class<?> type, Long id) {
+        if (id == null) {
+            return;
+        }
+
+        String key = EntityDictionary.getEntityName(ClassType.of(type)) + " " + id;
+
+        synchronized (pending) {
+            if (pending.isEmpty() && !executor.isShutdown()) {
+                executor.schedule(this::flush, properties.getCoalesceMillis(), TimeUnit.MILLISECONDS);
+            }
+
+            pending.add(key);
+        }
+    }
+
+    /**
+     * Send the pending invalidations now.
+     */
+    void flush() {
+        String body;
+
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            body = String.join("\n", pending);
+            pending.clear();
+        }
+
+        try {
+            jms.send(properties.getTopic(), session -> {
+                TextMessage msg = session.createTextMessage(body);
+                msg.setStringProperty(NODE_PROPERTY, node);
+                return msg;
+            });
+        } catch (RuntimeException e) {
+            // Cached objects on other nodes will still expire
+            LOG.warn("Failed to send cache invalidations", e);
+        }
+    }
+
+    /**
+     * Evict the objects listed in a message from another node.
+     *
+     * @param msg message with a line of type and id for each object
+     * @throws JMSException if the message cannot be read
+     */
+    @JmsListener(destination = "${pass.cache-invalidation.topic:pass.cache.invalidation}",
+            containerFactory = CacheInvalidationConfiguration.LISTENER_FACTORY)
+    public void receive(TextMessage msg) throws JMSException {
+        if (node.equals(msg.getStringProperty(NODE_PROPERTY))) {
+            return;
+        }
+
+        String text = msg.getText();
+
+        if (text == null) {
+            LOG.warn("Ignoring empty cache invalidation message");
+            return;
+        }
+
+        for (String line : text.split("\n")) {
+            String[] parts = line.split(" ");
+            Type<?> type = parts.length == 2 ? dictionary.getEntityClass(parts[0], EntityDictionary.NO_VERSION)
+                    : null;
+            Long id = parts.length == 2 ? parse_id(parts[1]) : null;
+
+            if (type instanceof ClassType && id != null) {
+                cache.invalidateLocally(((ClassType<?>) type).getCls(), id);
+            } else {
+                LOG.warn("Ignoring cache invalidation: " + line);
+            }
+        }
+    }
+
+    private static Long parse_id(String value) {
+        try {
+            return Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.main;
+
+import javax.jms.ConnectionFactory;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jms.DefaultJmsListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jms.config.DefaultJmsListenerContainerFactory;
+
+/**
+ * Listener container factory for the topic of the {@link CacheInvalidationBus}. Only the bus uses it,
+ * so other JMS destinations of the application stay queues by default.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "pass.cache-invalidation", name = "enabled", havingValue = "true",
+        matchIfMissing = true)
+public class CacheInvalidationConfiguration {
+    /**
+     * Name of the listener container factory for the cache invalidation topic.
+     */
+    public static final String LISTENER_FACTORY = "cacheInvalidationListenerFactory";
+
+    /**
+     * @param connectionFactory factory of connections to the broker
+     * @param configurer applies the application JMS listener settings
+     * @return factory of listener containers subscribed to topics
+     */
+    @Bean(name = LISTENER_FACTORY)
+    public DefaultJmsListenerContainerFactory cacheInvalidationListenerFactory(ConnectionFactory connectionFactory,
+            DefaultJmsListenerContainerFactoryConfigurer configurer) {
+        DefaultJmsListenerContainerFactory factory = new DefaultJmsListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setPubSubDomain(true);
+
+        return factory;
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.main;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.yahoo.elide.RefreshableElide;
+import com.yahoo.elide.core.dictionary.EntityDictionary;
+import com.yahoo.elide.spring.config.ElideConfigProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Time JSON:API requests by entity type and HTTP method. The Spring MVC request metrics only see the single
+ * mapping of the JSON:API controller, so they cannot tell types apart.
+ *
+ * The timer pass.data.requests is tagged with the type, method, kind of path (collection, resource, or
+ * relationship), response status, and whether the request has a filter or include parameter. Types which are
+ * not bound in Elide are tagged as unknown and methods outside the standard ones as OTHER to bound the number
+ * of series. A request which fails or times out after Elide started answering asynchronously is recorded
+ * with a 500 status unless an error status was already set.
+ */
+@Component
+public class DataRequestMetricsFilter extends OncePerRequestFilter {
+    private static final Set<String> METHODS = Set.of("GET", "HEAD", "POST", "PUT", "PATCH", "DELETE", "OPTIONS");
+
+    private final MeterRegistry registry;
+    private final EntityDictionary dictionary;
+    private final String path;
+
+    public DataRequestMetricsFilter(MeterRegistry registry, RefreshableElide refreshableElide,
+            ElideConfigProperties elideProperties) {
+        this.registry = registry;
+        this.dictionary = refreshableElide.getElide().getElideSettings().getDictionary();
+        this.path = elideProperties.getJsonApi().getPath() + "/";
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !get_path(request).startsWith(path);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            // Elide answers asynchronously, so record once the response is complete
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    // onComplete follows onError and onTimeout
+                    private final AtomicBoolean recorded = new AtomicBoolean();
+
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        record_once(false);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        record_once(true);
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        record_once(true);
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                        // Keep listening when the request is dispatched asynchronously again
+                        event.getAsyncContext().addListener(this);
+                    }
+
+                    private void record_once(boolean failed) {
+                        if (recorded.compareAndSet(false, true)) {
+                            record(request, response, start, failed);
+                        }
+                    }
+                });
+            } else {
+                record(request, response, start, false);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, HttpServletResponse response, long start, boolean failed) {
+        String[] segments = get_path(request).substring(path.length()).split("/");
+        String type = dictionary.getEntityClass(segments[0], EntityDictionary.NO_VERSION) == null ? "unknown"
+                : segments[0];
+        String kind = segments.length == 1 ? "collection" : segments.length == 2 ? "resource" : "relationship";
+        String method = METHODS.contains(request.getMethod()) ? request.getMethod() : "OTHER";
+        int status = failed && response.getStatus() < 400 ? 500 : response.getStatus();
+
+        Timer.builder("pass.data.requests")
+            .description("Latency of JSON:API requests")
+            .tags("type", type, "method", method, "kind", kind,
+                  "status", String.valueOf(status),
+                  "filter", String.valueOf(has_parameter(request, "filter")),
+                  "include", String.valueOf(request.getParameter("include") != null))
+            .publishPercentileHistogram()
+            .minimumExpectedValue(Duration.ofMillis(1))
+            .maximumExpectedValue(Duration.ofSeconds(30))
+            .register(registry)
+            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private static String get_path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    // Filters may be given as filter or filter[type]
+    private static boolean has_parameter(HttpServletRequest request, String name) {
+        return request.getParameterMap().keySet().stream().anyMatch(k -> k.equals(name)
+                || k.startsWith(name + "["));
+    }
+}
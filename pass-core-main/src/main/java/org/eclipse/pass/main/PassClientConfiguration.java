@@ -0,0 +1,66 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.main;
+
+import javax.persistence.EntityManagerFactory;
+
+import com.yahoo.elide.RefreshableElide;
+import org.eclipse.pass.object.FilterExpressionCache;
+import org.eclipse.pass.object.PassEntityCache;
+import org.eclipse.pass.object.PassEntityCacheInvalidator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Beans shared by the PASS clients which run against the application Elide.
+ */
+@Configuration
+public class PassClientConfiguration {
+    /**
+     * The cache is a MeterBinder, so its counters are registered with the application MeterRegistry.
+     *
+     * @param refreshableElide Elide of the application
+     * @return cache of parsed filters used by clients of the application Elide
+     */
+    @Bean
+    public FilterExpressionCache filterExpressionCache(RefreshableElide refreshableElide) {
+        return FilterExpressionCache.of(refreshableElide.getElide().getElideSettings().getDictionary());
+    }
+
+    /**
+     * The cache is a MeterBinder, so its counters are registered with the application MeterRegistry.
+     *
+     * @return default cache of reference objects used by CachingPassClient
+     */
+    @Bean
+    public PassEntityCache passEntityCache() {
+        return PassEntityCache.getDefault();
+    }
+
+    /**
+     * Objects in the default cache are invalidated when changes to them are committed, however they are made.
+     *
+     * @param entityManagerFactory factory of the entity managers used by Elide
+     * @return listener registered with Hibernate
+     */
+    @Bean
+    public PassEntityCacheInvalidator passEntityCacheInvalidator(EntityManagerFactory entityManagerFactory) {
+        PassEntityCacheInvalidator invalidator = new PassEntityCacheInvalidator();
+        invalidator.register(entityManagerFactory);
+
+        return invalidator;
+    }
+}
@@ -20,8 +20,20 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties(prefix = "security")
 public class SecurityConfigProperties {
     private String origin = "*";
+    private String metricsAddress = "127.0.0.1";
 
     public String getOrigin() {
         return origin;
     }
+
+    /**
+     * @return IP address or subnet such as 10.0.0.0/8 allowed to scrape /actuator/prometheus
+     */
+    public String getMetricsAddress() {
+        return metricsAddress;
+    }
+
+    public void setMetricsAddress(String metricsAddress) {
+        this.metricsAddress = metricsAddress;
+    }
 }
@@ -28,11 +28,17 @@ import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 /**
- * Enable CORS and disable CSRF.
+ * Enable CORS and disable CSRF. The Prometheus endpoint is only available to the metrics address
+ * and other actuator endpoints are denied.
  */
 @Configuration
 @EnableWebSecurity
 public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
+    private final SecurityConfigProperties properties;
+
+    public SecurityConfiguration(SecurityConfigProperties properties) {
+        this.properties = properties;
+    }
 
     @Override
     protected void configure(HttpSecurity httpSecurity) throws Exception {
@@ -41,7 +47,10 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
                 .and()
              .headers().frameOptions().sameOrigin()  //Needed for Swagger and Graphiql iFrames.
                 .and()
-             .authorizeRequests().antMatchers("/**").permitAll()
+             .authorizeRequests()
+                .antMatchers("/actuator/prometheus").hasIpAddress(properties.getMetricsAddress())
+                .antMatchers("/actuator/**").denyAll()
+                .antMatchers("/**").permitAll()
                 .and()
              .csrf().disable();
     }
@@ -55,6 +64,8 @@ public class SecurityConfiguration extends WebSecurityConfigurerAdapter {
         configuration.setMaxAge(Duration.ofHours(1));
         configuration.setAllowCredentials(true);
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        // No origins are allowed to make cross origin requests to the actuator
+        source.registerCorsConfiguration("/actuator/**", new CorsConfiguration());
         source.registerCorsConfiguration("/**", configuration);
         return source;
     }
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.main;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import javax.jms.Connection;
+import javax.jms.ConnectionFactory;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import com.yahoo.elide.RefreshableElide;
+import org.eclipse.pass.object.ElideDataStorePassClient;
+import org.eclipse.pass.object.PassClient;
+import org.eclipse.pass.object.PassEntityCache;
+import org.eclipse.pass.object.model.Funder;
+import org.eclipse.pass.object.model.Grant;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jms.core.JmsTemplate;
+
+public class CacheInvalidationBusTest extends IntegrationTest {
+    @Autowired
+    private ConnectionFactory connectionFactory;
+
+    @Autowired
+    private RefreshableElide refreshableElide;
+
+    @Autowired
+    private CacheInvalidationBus bus;
+
+    private void send(String node, String body) {
+        JmsTemplate jms = new JmsTemplate(connectionFactory);
+        jms.setPubSubDomain(true);
+
+        jms.send(bus.getTopic(), session -> {
+            TextMessage msg = session.createTextMessage(body);
+            msg.setStringProperty(CacheInvalidationBus.NODE_PROPERTY, node);
+            return msg;
+        });
+    }
+
+    private Funder await_invalidation(PassEntityCache cache, Long id) throws InterruptedException {
+        Funder result = cache.get(Funder.class, id);
+
+        for (int i = 0; i < 100 && result != null; i++) {
+            Thread.sleep(50);
+            result = cache.get(Funder.class, id);
+        }
+
+        return result;
+    }
+
+    @Test
+    public void testRemoteInvalidation() throws Exception {
+        PassEntityCache cache = PassEntityCache.getDefault();
+
+        Funder funder1 = new Funder();
+        funder1.setId(-1L);
+        cache.put(Funder.class, funder1);
+
+        Funder funder2 = new Funder();
+        funder2.setId(-2L);
+        cache.put(Funder.class, funder2);
+
+        send("other node", "funder -1\nfunder -2");
+
+        assertNull(await_invalidation(cache, -1L));
+        assertNull(cache.get(Funder.class, -2L));
+    }
+
+    @Test
+    public void testLocalPublish() throws Exception {
+        PassEntityCache cache = PassEntityCache.getDefault();
+
+        Funder funder1 = new Funder();
+        funder1.setId(-3L);
+        cache.put(Funder.class, funder1);
+
+        Funder funder2 = new Funder();
+        funder2.setId(-4L);
+        cache.put(Funder.class, funder2);
+
+        // Invalidations published by this node are not applied again when received
+        bus.publish(Funder.class, -3L);
+        bus.flush();
+
+        // Once a later message from another node is applied, the earlier one has been received
+        send("other node", "funder -4");
+
+        assertNull(await_invalidation(cache, -4L));
+        assertNotNull(cache.get(Funder.class, -3L));
+        cache.invalidate(Funder.class, -3L);
+    }
+
+    @Test
+    public void testMalformedInvalidation() throws Exception {
+        PassEntityCache cache = PassEntityCache.getDefault();
+
+        Funder funder = new Funder();
+        funder.setId(-5L);
+        cache.put(Funder.class, funder);
+
+        send("other node", "funder not-an-id\nfunder\nunknown -5\nfunder -5");
+
+        assertNull(await_invalidation(cache, -5L));
+    }
+
+    @Test
+    public void testPublishEveryCommit() throws Exception {
+        PassEntityCache cache = PassEntityCache.getDefault();
+
+        try (Connection connection = connectionFactory.createConnection();
+                PassClient client = new ElideDataStorePassClient(refreshableElide)) {
+            Session session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+            MessageConsumer consumer = session.createConsumer(session.createTopic(bus.getTopic()));
+            connection.start();
+
+            Funder funder = new Funder();
+            funder.setName("funder");
+            client.createObject(funder);
+            cache.put(Funder.class, funder);
+
+            // Writes which bypass Elide hooks are still published, including those of types which are not cached
+            funder.setName("updated");
+            client.updateObject(funder);
+
+            Grant grant = new Grant();
+            grant.setAwardNumber("published");
+            client.createObject(grant);
+
+            assertNull(cache.get(Funder.class, funder.getId()));
+
+            Set<String> expected = new HashSet<>(Set.of("funder " + funder.getId(), "grant " + grant.getId()));
+
+            for (int i = 0; i < 20 && !expected.isEmpty(); i++) {
+                Message msg = consumer.receive(500);
+
+                if (msg instanceof TextMessage) {
+                    expected.removeAll(Set.of(((TextMessage) msg).getText().split("\n")));
+                }
+            }
+
+            assertTrue(expected.isEmpty(), "Not published: " + expected);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.main;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.json.Json;
+import javax.json.JsonObject;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Local stand in for the Crossref works API so the DOI service can be tested without external services.
+ * Each DOI is answered with a journal article in one of a fixed number of journals.
+ */
+public class CrossrefStub implements AutoCloseable {
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final int journals;
+
+    /**
+     * Start the stub. The DOI service must be configured with the base URL http://localhost:port/works/.
+     *
+     * @param port port to listen on
+     * @param journals number of distinct journals
+     * @throws IOException if the server cannot be started
+     */
+    public CrossrefStub(int port, int journals) throws IOException {
+        this.journals = journals;
+        this.executor = Executors.newFixedThreadPool(8);
+        this.server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+
+        server.createContext("/works/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String doi = exchange.getRequestURI().getPath().substring("/works/".length());
+        int journal = Math.floorMod(doi.hashCode(), journals);
+        String issn = String.format("%04d-%04d", 9000 + journal / 10000, journal % 10000);
+
+        JsonObject message = Json.createObjectBuilder()
+            .add("DOI", doi)
+            .add("type", "journal-article")
+            .add("container-title", Json.createArrayBuilder().add("Load Test Journal " + journal))
+            .add("ISSN", Json.createArrayBuilder().add(issn))
+            .add("issn-type", Json.createArrayBuilder()
+                .add(Json.createObjectBuilder().add("type", "print").add("value", issn)))
+            .build();
+
+        byte[] body = Json.createObjectBuilder()
+            .add("status", "ok")
+            .add("message-type", "work")
+            .add("message", message)
+            .build().toString().getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+    }
+}
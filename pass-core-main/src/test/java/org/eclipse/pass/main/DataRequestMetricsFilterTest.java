@@ -0,0 +1,109 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.main;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class DataRequestMetricsFilterTest extends IntegrationTest {
+    @Autowired
+    private DataRequestMetricsFilter filter;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    private long count(String method, String status) {
+        Timer timer = registry.find("pass.data.requests").tags("type", "funder", "method", method,
+                "status", status).timer();
+
+        return timer == null ? 0 : timer.count();
+    }
+
+    // Run the filter with a chain which starts asynchronous processing like Elide
+    private MockAsyncContext filter_async(String method) throws IOException, ServletException {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/data/funder");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        request.setAsyncSupported(true);
+
+        filter.doFilter(request, response, (req, resp) -> req.startAsync());
+
+        MockAsyncContext context = (MockAsyncContext) request.getAsyncContext();
+        assertNotNull(context);
+
+        return context;
+    }
+
+    @Test
+    public void testRecordAsyncComplete() throws IOException, ServletException {
+        long before = count("GET", "200");
+
+        filter_async("GET").complete();
+
+        assertEquals(before + 1, count("GET", "200"));
+    }
+
+    @Test
+    public void testRecordAsyncErrorOnce() throws IOException, ServletException {
+        long before = count("GET", "500");
+        MockAsyncContext context = filter_async("GET");
+
+        for (AsyncListener listener : new ArrayList<>(context.getListeners())) {
+            listener.onError(new AsyncEvent(context, new IOException("Failed")));
+        }
+
+        context.complete();
+
+        assertEquals(before + 1, count("GET", "500"));
+    }
+
+    @Test
+    public void testRecordAsyncTimeout() throws IOException, ServletException {
+        long before = count("GET", "500");
+        MockAsyncContext context = filter_async("GET");
+
+        for (AsyncListener listener : new ArrayList<>(context.getListeners())) {
+            listener.onTimeout(new AsyncEvent(context));
+        }
+
+        context.complete();
+
+        assertEquals(before + 1, count("GET", "500"));
+    }
+
+    @Test
+    public void testUnknownMethod() throws IOException, ServletException {
+        long before = count("OTHER", "200");
+
+        filter_async("PROPFIND").complete();
+
+        assertEquals(before + 1, count("OTHER", "200"));
+        assertEquals(0, count("PROPFIND", "200"));
+    }
+}
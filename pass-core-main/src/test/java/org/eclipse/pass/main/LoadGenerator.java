@@ -0,0 +1,273 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.main;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+
+/**
+ * Open model load generator. Requests arrive as a Poisson process of a fixed rate whether or not earlier requests
+ * have completed, so a slow server builds up outstanding requests instead of slowing the generator down. Latency
+ * is measured from the time a request was scheduled rather than sent to avoid coordinated omission.
+ * <p>
+ * Each request is one of a weighted mix of operations. Latencies are recorded in microseconds in a histogram for
+ * each operation.
+ */
+public class LoadGenerator {
+    private static final long HIGHEST_LATENCY = TimeUnit.MINUTES.toMicros(10);
+
+    private final HttpClient client;
+    private final double rate;
+    private final SplittableRandom random;
+    private final List<Operation> operations;
+    private double total_weight;
+
+    /**
+     * Create a request for an operation.
+     */
+    public interface RequestFactory {
+        /**
+         * @param random source of randomness for the request
+         * @return request to send
+         */
+        HttpRequest create(SplittableRandom random);
+    }
+
+    private static class Operation {
+        final String name;
+        final double weight;
+        final RequestFactory factory;
+        final Histogram histogram;
+        final AtomicLong errors;
+
+        Operation(String name, double weight, RequestFactory factory) {
+            this.name = name;
+            this.weight = weight;
+            this.factory = factory;
+            this.histogram = new ConcurrentHistogram(HIGHEST_LATENCY, 3);
+            this.errors = new AtomicLong();
+        }
+    }
+
+    /**
+     * @param client client used to send requests
+     * @param rate mean number of requests per second
+     * @param seed seed of the arrival times and requests
+     */
+    public LoadGenerator(HttpClient client, double rate, long seed) {
+        this.client = client;
+        this.rate = rate;
+        this.random = new SplittableRandom(seed);
+        this.operations = new ArrayList<>();
+    }
+
+    /**
+     * Add an operation to the mix.
+     *
+     * @param name name used in the report
+     * @param weight relative frequency of the operation
+     * @param factory creates the requests of the operation
+     */
+    public void add(String name, double weight, RequestFactory factory) {
+        if (weight > 0) {
+            operations.add(new Operation(name, weight, factory));
+            total_weight += weight;
+        }
+    }
+
+    /**
+     * Send requests for a duration and wait for them to complete. Statistics from earlier runs are discarded,
+     * so a first run can be used as a warm up.
+     *
+     * @param duration time over which requests are sent
+     * @return statistics of the run
+     */
+    public Report run(Duration duration) {
+        operations.forEach(op -> {
+            op.histogram.reset();
+            op.errors.set(0);
+        });
+
+        List<CompletableFuture<?>> pending = new ArrayList<>();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        double scheduled = start;
+
+        while (true) {
+            scheduled += -Math.log(1 - random.nextDouble()) / rate * 1e9;
+
+            long intended = (long) scheduled;
+
+            if (intended - end >= 0) {
+                break;
+            }
+
+            Operation op = pick();
+            HttpRequest request = op.factory.create(random);
+            long wait = intended - System.nanoTime();
+
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            pending.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete(
+                (response, error) -> {
+                    op.histogram.recordValue(Math.min(HIGHEST_LATENCY,
+                            TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended)));
+
+                    if (error != null || response.statusCode() >= 400) {
+                        op.errors.incrementAndGet();
+                    }
+                }));
+        }
+
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).exceptionally(e -> null).join();
+
+        Map<String, Histogram> histograms = new LinkedHashMap<>();
+        Map<String, Long> errors = new LinkedHashMap<>();
+
+        operations.forEach(op -> {
+            histograms.put(op.name, op.histogram.copy());
+            errors.put(op.name, op.errors.get());
+        });
+
+        return new Report(histograms, errors, System.nanoTime() - start);
+    }
+
+    private Operation pick() {
+        double value = random.nextDouble() * total_weight;
+
+        for (Operation op : operations) {
+            value -= op.weight;
+
+            if (value < 0) {
+                return op;
+            }
+        }
+
+        return operations.get(operations.size() - 1);
+    }
+
+    /**
+     * Latency and throughput of a run.
+     */
+    public static class Report {
+        private final Map<String, Histogram> histograms;
+        private final Map<String, Long> errors;
+        private final Histogram total;
+        private final long elapsed_nanos;
+
+        Report(Map<String, Histogram> histograms, Map<String, Long> errors, long elapsed_nanos) {
+            this.histograms = histograms;
+            this.errors = errors;
+            this.elapsed_nanos = elapsed_nanos;
+            this.total = new Histogram(HIGHEST_LATENCY, 3);
+
+            histograms.values().forEach(total::add);
+        }
+
+        /**
+         * @return number of completed requests
+         */
+        public long getCount() {
+            return total.getTotalCount();
+        }
+
+        /**
+         * @return number of requests which failed or had an error status
+         */
+        public long getErrors() {
+            return errors.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        /**
+         * @return completed requests per second
+         */
+        public double getThroughput() {
+            return getCount() / (elapsed_nanos / 1e9);
+        }
+
+        /**
+         * @param name operation name or null for all operations
+         * @return latency histogram in microseconds
+         */
+        public Histogram getHistogram(String name) {
+            return name == null ? total : histograms.get(name);
+        }
+
+        /**
+         * Log a summary line for each operation and the total.
+         *
+         * @param log logger to write to
+         */
+        public void log(Logger log) {
+            log.info(String.format("%-20s %8s %8s %10s %10s %10s %10s %10s", "operation", "count", "errors",
+                    "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+
+            histograms.forEach((name, histogram) -> log_line(log, name, histogram, errors.get(name)));
+            log_line(log, "total", total, getErrors());
+        }
+
+        private void log_line(Logger log, String name, Histogram histogram, long error_count) {
+            log.info(String.format("%-20s %8d %8d %10.1f %10.2f %10.2f %10.2f %10.2f", name,
+                    histogram.getTotalCount(), error_count, histogram.getTotalCount() / (elapsed_nanos / 1e9),
+                    histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(99) / 1000.0,
+                    histogram.getValueAtPercentile(99.9) / 1000.0, histogram.getMaxValue() / 1000.0));
+        }
+
+        /**
+         * Write the percentile distribution of each operation and the total in milliseconds to a .hgrm file
+         * named after it, as plotted by the HdrHistogram tools.
+         *
+         * @param dir directory to write to
+         * @throws IOException if writing fails
+         */
+        public void write(Path dir) throws IOException {
+            Files.createDirectories(dir);
+
+            for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+                write(dir.resolve(entry.getKey() + ".hgrm"), entry.getValue());
+            }
+
+            write(dir.resolve("total.hgrm"), total);
+        }
+
+        private static void write(Path file, Histogram histogram) throws IOException {
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, "UTF-8")) {
+                histogram.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.main;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.yahoo.elide.RefreshableElide;
+import org.eclipse.pass.object.ElideDataStorePassClient;
+import org.eclipse.pass.object.PassClient;
+import org.eclipse.pass.object.PassClientBatchResult;
+import org.eclipse.pass.object.model.Funder;
+import org.eclipse.pass.object.model.Grant;
+import org.eclipse.pass.object.model.PassEntity;
+import org.eclipse.pass.object.model.Publication;
+import org.eclipse.pass.object.model.Repository;
+import org.eclipse.pass.object.model.Submission;
+import org.eclipse.pass.object.model.SubmissionStatus;
+import org.eclipse.pass.object.model.User;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Measure latency and throughput of the /data and /doi endpoints under an open model workload. Only runs when the
+ * system property pass.load-test is true, as set by the load-test Maven profile which also points the DOI service
+ * at a local Crossref stub.
+ * <p>
+ * The workload is configured by the system properties pass.load-test.rate (requests per second),
+ * pass.load-test.duration and pass.load-test.warmup (seconds), pass.load-test.write-ratio (fraction of requests
+ * which create or update submissions), pass.load-test.max-error-rate, and pass.load-test.seed. Percentile
+ * distributions are written to pass.load-test.report-dir.
+ */
+@EnabledIfSystemProperty(named = "pass.load-test", matches = "true")
+public class LoadTest extends IntegrationTest {
+    private static final Logger LOG = LoggerFactory.getLogger(LoadTest.class);
+
+    private static final String JSON_API = "application/vnd.api+json";
+    private static final String SUBMISSION_INCLUDE = "grants,grants.pi,grants.coPis,grants.primaryFunder,"
+        + "publication,publication.journal,repositories,submitter,preparers";
+
+    @Autowired
+    protected RefreshableElide refreshableElide;
+
+    private final double rate = Double.parseDouble(System.getProperty("pass.load-test.rate", "100"));
+    private final long duration = Long.getLong("pass.load-test.duration", 30);
+    private final long warmup = Long.getLong("pass.load-test.warmup", 10);
+    private final double write_ratio = Double.parseDouble(System.getProperty("pass.load-test.write-ratio", "0.1"));
+    private final double max_error_rate = Double.parseDouble(
+        System.getProperty("pass.load-test.max-error-rate", "0.01"));
+    private final long seed = Long.getLong("pass.load-test.seed", 1);
+    private final int crossref_port = Integer.getInteger("pass.load-test.crossref-port", 18089);
+    private final Path report_dir = Path.of(System.getProperty("pass.load-test.report-dir", "target/load-test"));
+
+    private CrossrefStub crossref;
+    private ExecutorService executor;
+    private long[] users;
+    private long[] grants;
+    private long[] submissions;
+
+    @BeforeAll
+    public void setupLoad() throws IOException {
+        crossref = new CrossrefStub(crossref_port, 50);
+        executor = Executors.newFixedThreadPool(16);
+
+        SplittableRandom random = new SplittableRandom(seed);
+
+        try (PassClient client = new ElideDataStorePassClient(refreshableElide)) {
+            long[] repositories = create(client, 2, i -> {
+                Repository repo = new Repository();
+                repo.setName("Load test repository " + i);
+                repo.setRepositoryKey("load-test-" + i);
+                return repo;
+            });
+
+            long[] funders = create(client, 5, i -> {
+                Funder funder = new Funder();
+                funder.setName("Load test funder " + i);
+                funder.setLocalKey("load-test-" + i);
+                return funder;
+            });
+
+            users = create(client, 200, i -> {
+                User user = new User();
+                user.setUsername("load-test-" + i);
+                user.setDisplayName("Load Test " + i);
+                user.setEmail("load-test-" + i + "@example.org");
+                return user;
+            });
+
+            grants = create(client, 1000, i -> {
+                Grant grant = new Grant();
+                grant.setAwardNumber("LOAD" + i);
+                grant.setLocalKey("load-test-" + i);
+                grant.setProjectName("Load test project " + i);
+                grant.setPrimaryFunder(ref(new Funder(), funders[random.nextInt(funders.length)]));
+                grant.setPi(ref(new User(), users[random.nextInt(users.length)]));
+
+                for (int j = random.nextInt(4); j > 0; j--) {
+                    grant.getCoPis().add(ref(new User(), users[random.nextInt(users.length)]));
+                }
+
+                return grant;
+            });
+
+            long[] publications = create(client, 1000, i -> {
+                Publication pub = new Publication();
+                pub.setTitle("Load test publication " + i);
+                pub.setDoi("10.5555/load-test." + i);
+                return pub;
+            });
+
+            submissions = create(client, 1000, i -> {
+                Submission sub = new Submission();
+                sub.setSubmissionStatus(SubmissionStatus.DRAFT);
+                sub.setSubmitted(false);
+                sub.setPublication(ref(new Publication(), publications[i]));
+                sub.setSubmitter(ref(new User(), users[random.nextInt(users.length)]));
+                sub.getRepositories().add(ref(new Repository(), repositories[random.nextInt(repositories.length)]));
+
+                for (int j = 1 + random.nextInt(3); j > 0; j--) {
+                    sub.getGrants().add(ref(new Grant(), grants[random.nextInt(grants.length)]));
+                }
+
+                return sub;
+            });
+        }
+    }
+
+    @AfterAll
+    public void cleanupLoad() {
+        crossref.close();
+        executor.shutdown();
+    }
+
+    private interface Factory<T extends PassEntity> {
+        T create(int index);
+    }
+
+    private static <T extends PassEntity> long[] create(PassClient client, int count, Factory<T> factory)
+            throws IOException {
+        List<T> objs = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            objs.add(factory.create(i));
+        }
+
+        PassClientBatchResult result = client.createObjects(objs);
+
+        if (!result.isSuccess()) {
+            throw result.getFailures().values().iterator().next();
+        }
+
+        return objs.stream().mapToLong(PassEntity::getId).toArray();
+    }
+
+    private static <T extends PassEntity> T ref(T obj, long id) {
+        obj.setId(id);
+        return obj;
+    }
+
+    private HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+            .header("Accept", JSON_API)
+            .timeout(Duration.ofMinutes(1));
+    }
+
+    private HttpRequest.BodyPublisher json(String body) {
+        return HttpRequest.BodyPublishers.ofString(body);
+    }
+
+    private String submission_json(String id, String status, long grant, long submitter) {
+        return "{\"data\": {\"type\": \"submission\"" + (id == null ? "" : ", \"id\": \"" + id + "\"")
+            + ", \"attributes\": {\"submissionStatus\": \"" + status + "\", \"submitted\": false, \"source\": \"pass\"}"
+            + ", \"relationships\": {\"grants\": {\"data\": [{\"type\": \"grant\", \"id\": \"" + grant + "\"}]}"
+            + ", \"submitter\": {\"data\": {\"type\": \"user\", \"id\": \"" + submitter + "\"}}}}}";
+    }
+
+    private LoadGenerator create_generator() {
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .executor(executor)
+            .connectTimeout(Duration.ofSeconds(10))
+            .build();
+
+        LoadGenerator load = new LoadGenerator(client, rate, seed);
+        AtomicLong dois = new AtomicLong();
+        double read_ratio = 1 - write_ratio;
+
+        load.add("getSubmission", read_ratio * 0.35,
+            r -> request("/data/submission/" + submissions[r.nextInt(submissions.length)]).GET().build());
+
+        load.add("includeSubmission", read_ratio * 0.25,
+            r -> request("/data/submission/" + submissions[r.nextInt(submissions.length)]
+                + "?include=" + SUBMISSION_INCLUDE).GET().build());
+
+        load.add("filterGrant", read_ratio * 0.3, r -> {
+            long user = users[r.nextInt(users.length)];
+
+            return request("/data/grant?filter=pi.id==" + user + ",coPis.id==" + user + "&page%5Bsize%5D=20")
+                .GET().build();
+        });
+
+        // Each DOI is new so the DOI service does not reject it as already active
+        load.add("doiJournal", read_ratio * 0.1,
+            r -> request("/doi/journal?doi=10.5555/load-test." + seed + "." + dois.incrementAndGet()).GET().build());
+
+        load.add("createSubmission", write_ratio * 0.5,
+            r -> request("/data/submission").header("Content-Type", JSON_API)
+                .POST(json(submission_json(null, "draft", grants[r.nextInt(grants.length)],
+                    users[r.nextInt(users.length)]))).build());
+
+        load.add("updateSubmission", write_ratio * 0.5, r -> {
+            long id = submissions[r.nextInt(submissions.length)];
+            String status = r.nextBoolean() ? "draft" : "approval-requested";
+
+            return request("/data/submission/" + id).header("Content-Type", JSON_API)
+                .method("PATCH", json(submission_json(String.valueOf(id), status, grants[r.nextInt(grants.length)],
+                    users[r.nextInt(users.length)]))).build();
+        });
+
+        return load;
+    }
+
+    @Test
+    public void testMixedWorkload() throws IOException {
+        LoadGenerator load = create_generator();
+
+        LOG.info("Warming up for {} s at {} requests/s", warmup, rate);
+        load.run(Duration.ofSeconds(warmup));
+
+        LOG.info("Running for {} s at {} requests/s with write ratio {}", duration, rate, write_ratio);
+        LoadGenerator.Report report = load.run(Duration.ofSeconds(duration));
+
+        report.log(LOG);
+        report.write(report_dir);
+        LOG.info("Throughput {} requests/s, percentile distributions written to {}",
+            String.format("%.1f", report.getThroughput()), report_dir.toAbsolutePath());
+
+        assertTrue(report.getCount() > 0);
+        assertTrue(report.getErrors() <= report.getCount() * max_error_rate,
+            "Too many failed requests: " + report.getErrors() + " of " + report.getCount());
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.object;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.yahoo.elide.RefreshableElide;
+import org.eclipse.pass.main.IntegrationTest;
+import org.eclipse.pass.object.model.Funder;
+import org.eclipse.pass.object.model.Grant;
+import org.eclipse.pass.object.model.PassEntity;
+import org.eclipse.pass.object.model.Policy;
+import org.eclipse.pass.object.model.Repository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+public class AsyncPassClientTest extends IntegrationTest {
+    @Autowired
+    protected RefreshableElide refreshableElide;
+
+    @Test
+    public void testOperations() throws Exception {
+        List<String> completed = new CopyOnWriteArrayList<>();
+
+        try (AsyncPassClient client = new AsyncPassClient(() -> new ElideDataStorePassClient(refreshableElide,
+                true), 4)) {
+            client.setListener((op, type, nanos, failure) -> completed.add(op + " " + type.getSimpleName()));
+
+            Funder funder = new Funder();
+            funder.setName("async");
+
+            Grant grant = new Grant();
+            grant.setAwardNumber("async");
+
+            CompletableFuture.allOf(client.createObject(funder), client.createObject(grant)).join();
+
+            assertNotNull(funder.getId());
+            assertNotNull(grant.getId());
+
+            CompletableFuture<Funder> get_funder = client.getObject(Funder.class, funder.getId());
+            CompletableFuture<Grant> get_grant = client.getObject(Grant.class, grant.getId());
+
+            assertEquals("async", get_funder.join().getName());
+            assertEquals("async", get_grant.join().getAwardNumber());
+
+            PassClientSelector<Grant> selector = new PassClientSelector<>(Grant.class);
+            selector.setFilter(RSQL.equals("id", grant.getId().toString()));
+
+            assertEquals(1, client.selectObjects(selector).join().getObjects().size());
+
+            client.deleteObject(Grant.class, grant.getId()).join();
+
+            assertNull(client.getObject(Grant.class, grant.getId()).join());
+            assertTrue(completed.contains("createObject Funder"));
+            assertTrue(completed.contains("deleteObject Grant"));
+        }
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch latch = new CountDownLatch(1);
+        AtomicBoolean ran = new AtomicBoolean();
+
+        try (AsyncPassClient client = new AsyncPassClient(() -> {
+            ran.set(true);
+            return new ElideDataStorePassClient(refreshableElide, true);
+        }, executor)) {
+            // Keep the only thread busy so the operation waits
+            executor.submit(() -> {
+                latch.await();
+                return null;
+            });
+
+            CompletableFuture<Funder> future = client.getObject(Funder.class, 1L);
+
+            assertTrue(future.cancel(false));
+            latch.countDown();
+
+            executor.submit(() -> null).get();
+
+            assertTrue(future.isCancelled());
+            assertFalse(ran.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testIncludeRelationships() throws Exception {
+        Policy policy = new Policy();
+
+        try (PassClient client = new ElideDataStorePassClient(refreshableElide)) {
+            Repository repo = new Repository();
+            repo.setName("async repo");
+            client.createObject(repo);
+
+            policy.setTitle("async policy");
+            policy.getRepositories().add(repo);
+            client.createObject(policy);
+        }
+
+        try (AsyncPassClient client = new AsyncPassClient(() -> new ElideDataStorePassClient(refreshableElide,
+                true), 2)) {
+            PassClientSelector<Policy> selector = new PassClientSelector<>(Policy.class);
+            selector.setFilter(RSQL.equals("id", policy.getId().toString()));
+            selector.setInclude(List.of("repositories"));
+
+            Policy test = client.selectObjects(selector).join().getObjects().get(0);
+
+            // The client is closed, but the included relationship was loaded by the operation
+            assertEquals("async repo", test.getRepositories().get(0).getName());
+        }
+    }
+
+    @Test
+    public void testCancelRunning() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch closed = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+
+        try (AsyncPassClient client = new AsyncPassClient(() -> new ElideDataStorePassClient(refreshableElide) {
+            @Override
+            public <T extends PassEntity> T getObject(Class<T> type, Long id) throws IOException {
+                started.countDown();
+
+                try {
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                } catch (InterruptedException e) {
+                    interrupted.set(true);
+                    throw new InterruptedIOException();
+                }
+
+                return null;
+            }
+
+            @Override
+            public void close() throws IOException {
+                closed.countDown();
+                super.close();
+            }
+        }, 1)) {
+            CompletableFuture<Funder> future = client.getObject(Funder.class, 1L);
+
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            assertTrue(future.cancel(true));
+
+            // The client of the operation is closed
+            assertTrue(closed.await(10, TimeUnit.SECONDS));
+            assertTrue(interrupted.get());
+            assertTrue(future.isCancelled());
+        }
+    }
+}
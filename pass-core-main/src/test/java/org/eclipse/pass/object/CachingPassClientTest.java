@@ -0,0 +1,241 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.object;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import com.yahoo.elide.RefreshableElide;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.eclipse.pass.object.model.Funder;
+import org.eclipse.pass.object.model.Policy;
+import org.eclipse.pass.object.model.Repository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+public class CachingPassClientTest extends PassClientTest {
+    @Autowired
+    protected RefreshableElide refreshableElide;
+
+    @Override
+    protected PassClient getNewClient() {
+        return new CachingPassClient(new ElideDataStorePassClient(refreshableElide));
+    }
+
+    @Test
+    public void testCache() throws IOException {
+        PassEntityCache cache = PassEntityCache.getDefault();
+        Funder funder = new Funder();
+
+        try (PassClient client = getNewClient()) {
+            Repository repo = new Repository();
+            repo.setName("repo");
+            client.createObject(repo);
+
+            Policy policy = new Policy();
+            policy.setTitle("policy");
+            policy.getRepositories().add(repo);
+            client.createObject(policy);
+
+            funder.setName("funder");
+            funder.setPolicy(policy);
+            client.createObject(funder);
+
+            long misses = cache.getStatistics(Funder.class).getMisses();
+            long hits = cache.getStatistics(Funder.class).getHits();
+
+            assertEquals("funder", client.getObject(Funder.class, funder.getId()).getName());
+            assertEquals(misses + 1, cache.getStatistics(Funder.class).getMisses());
+
+            client.getObject(Funder.class, funder.getId()).setName("changed copy");
+            assertEquals("funder", client.getObject(Funder.class, funder.getId()).getName());
+            assertEquals(hits + 2, cache.getStatistics(Funder.class).getHits());
+        }
+
+        // Cached objects can be used after the client which loaded them is closed
+        try (PassClient client = getNewClient()) {
+            Funder test = client.getObject(Funder.class, funder.getId());
+
+            assertEquals("repo", test.getPolicy().getRepositories().get(0).getName());
+
+            test.setName("updated");
+            client.updateObject(test);
+
+            assertEquals("updated", client.getObject(Funder.class, funder.getId()).getName());
+        }
+
+        // Updates through the JSON:API invalidate the cache
+        try (PassClient client = new ElidePassClient(refreshableElide, new com.yahoo.elide.core.security.User(null))) {
+            Funder test = client.getObject(Funder.class, funder.getId());
+
+            test.setName("json");
+            client.updateObject(test);
+        }
+
+        try (PassClient client = getNewClient()) {
+            assertEquals("json", client.getObject(Funder.class, funder.getId()).getName());
+        }
+    }
+
+    @Test
+    public void testCachedGraphIsCopied() throws IOException {
+        try (PassClient client = getNewClient()) {
+            Repository repo = new Repository();
+            repo.setName("repo");
+            client.createObject(repo);
+
+            Policy policy = new Policy();
+            policy.setTitle("policy");
+            policy.getRepositories().add(repo);
+            client.createObject(policy);
+
+            Funder funder = new Funder();
+            funder.setName("funder");
+            funder.setPolicy(policy);
+            client.createObject(funder);
+
+            Funder first = client.getObject(Funder.class, funder.getId());
+            Funder second = client.getObject(Funder.class, funder.getId());
+
+            assertNotSame(first.getPolicy(), second.getPolicy());
+
+            // Changing related objects of one copy does not change the cached graph
+            first.getPolicy().setTitle("changed copy");
+            first.getPolicy().getRepositories().get(0).setName("changed copy");
+            first.getPolicy().getRepositories().clear();
+
+            Funder test = client.getObject(Funder.class, funder.getId());
+
+            assertEquals("policy", test.getPolicy().getTitle());
+            assertEquals("repo", test.getPolicy().getRepositories().get(0).getName());
+        }
+    }
+
+    @Test
+    public void testInvalidateContainingObjects() throws IOException {
+        try (PassClient client = getNewClient()) {
+            Repository repo = new Repository();
+            repo.setName("repo");
+            client.createObject(repo);
+
+            Policy policy = new Policy();
+            policy.setTitle("policy");
+            policy.getRepositories().add(repo);
+            client.createObject(policy);
+
+            Funder funder = new Funder();
+            funder.setName("funder");
+            funder.setPolicy(policy);
+            client.createObject(funder);
+
+            assertEquals("repo", client.getObject(Funder.class, funder.getId()).getPolicy().getRepositories()
+                    .get(0).getName());
+
+            // Changing an object of the cached graph removes the Funder which contains it
+            repo.setName("updated");
+            client.updateObject(repo);
+
+            assertNull(PassEntityCache.getDefault().get(Funder.class, funder.getId()));
+            assertEquals("updated", client.getObject(Funder.class, funder.getId()).getPolicy().getRepositories()
+                    .get(0).getName());
+        }
+    }
+
+    @Test
+    public void testReadPerOperationDelegate() throws IOException {
+        PassEntityCache cache = new PassEntityCache();
+        cache.configure(Funder.class, PassEntityCache.DEFAULT_TTL, PassEntityCache.DEFAULT_MAX_SIZE);
+
+        MeterRegistry registry = new SimpleMeterRegistry();
+        cache.bindTo(registry);
+
+        try (PassClient client = new CachingPassClient(new ElideDataStorePassClient(refreshableElide, true), cache)) {
+            Policy policy = new Policy();
+            policy.setTitle("policy");
+            client.createObject(policy);
+
+            Funder funder = new Funder();
+            funder.setName("funder");
+            funder.setPolicy(policy);
+            client.createObject(funder);
+
+            // Relationships are loaded in a read session of the delegate
+            assertEquals("policy", client.getObject(Funder.class, funder.getId()).getPolicy().getTitle());
+            assertEquals("policy", client.getObject(Funder.class, funder.getId()).getPolicy().getTitle());
+        }
+
+        assertEquals(1, registry.get(PassEntityCache.LOOKUPS).tags("type", "funder", "result", "hit")
+                .functionCounter().count());
+        assertEquals(1, registry.get(PassEntityCache.LOOKUPS).tags("type", "funder", "result", "miss")
+                .functionCounter().count());
+        assertEquals(1, registry.get(PassEntityCache.SIZE).tag("type", "funder").gauge().value());
+    }
+
+    @Test
+    public void testInvalidateAfterCommit() throws IOException {
+        PassEntityCache cache = PassEntityCache.getDefault();
+        List<Long> invalidated = new CopyOnWriteArrayList<>();
+        PassEntityCache.Listener listener = (type, id) -> invalidated.add(id);
+
+        try (PassClient client = getNewClient()) {
+            Funder funder = new Funder();
+            funder.setName("funder");
+            client.createObject(funder);
+
+            assertEquals("funder", client.getObject(Funder.class, funder.getId()).getName());
+
+            cache.addListener(listener);
+
+            client.inTransaction(tx -> {
+                Funder test = tx.getObject(Funder.class, funder.getId());
+                test.setName("updated");
+                tx.updateObject(test);
+
+                // Reads in the transaction see its changes but do not cache them
+                assertEquals("updated", tx.getObject(Funder.class, funder.getId()).getName());
+
+                // The cached object is only invalidated once the change is committed
+                assertEquals("funder", cache.get(Funder.class, funder.getId()).getName());
+                assertEquals(List.of(), invalidated);
+
+                return null;
+            });
+
+            // Listeners such as the cache invalidation bus are told about the change
+            assertEquals(Set.of(funder.getId()), new HashSet<>(invalidated));
+            assertNull(cache.get(Funder.class, funder.getId()));
+            assertEquals("updated", client.getObject(Funder.class, funder.getId()).getName());
+
+            // An object loaded before an invalidation is not cached
+            long version = cache.getVersion(Funder.class);
+            Funder stale = client.getObject(Funder.class, funder.getId());
+            cache.invalidate(Funder.class, funder.getId());
+            cache.put(Funder.class, stale, version);
+
+            assertNull(cache.get(Funder.class, funder.getId()));
+        } finally {
+            cache.removeListener(listener);
+        }
+    }
+}
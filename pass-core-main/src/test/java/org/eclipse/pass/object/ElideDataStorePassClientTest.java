@@ -15,7 +15,25 @@
  */
 package org.eclipse.pass.object;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
 import com.yahoo.elide.RefreshableElide;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.eclipse.pass.object.model.Funder;
+import org.eclipse.pass.object.model.Grant;
+import org.eclipse.pass.object.model.User;
+import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
 public class ElideDataStorePassClientTest extends PassClientTest {
@@ -26,4 +44,119 @@ public class ElideDataStorePassClientTest extends PassClientTest {
     protected PassClient getNewClient() {
         return new ElideDataStorePassClient(refreshableElide);
     }
+
+    @Test
+    public void testFilterCache() throws IOException {
+        String key = "key: " + UUID.randomUUID();
+
+        try (ElideDataStorePassClient client = new ElideDataStorePassClient(refreshableElide)) {
+            for (int i = 0; i < 3; i++) {
+                Funder funder = new Funder();
+                funder.setName("Funder " + i);
+                funder.setLocalKey(key);
+
+                client.createObject(funder);
+            }
+
+            FilterExpressionCache cache = client.getFilterCache();
+            MeterRegistry registry = new SimpleMeterRegistry();
+            cache.bindTo(registry);
+
+            assertSame(cache, FilterExpressionCache.of(refreshableElide.getElide().getElideSettings()
+                    .getDictionary()));
+
+            for (int i = 0; i < 3; i++) {
+                String filter = RSQL.and(RSQL.equals("localKey", key), RSQL.equals("name", "Funder " + i));
+                long hits = cache.getHits();
+                List<Funder> result = client.selectObjects(new PassClientSelector<>(Funder.class, 0, 10,
+                        filter, null)).getObjects();
+
+                assertEquals(1, result.size());
+                assertEquals("Funder " + i, result.get(0).getName());
+
+                if (i > 0) {
+                    assertEquals(hits + 1, cache.getHits());
+                }
+            }
+
+            String filter = RSQL.and(RSQL.equals("localKey", key), RSQL.equals("name", "Funder*"));
+
+            assertEquals(3, client.selectObjects(new PassClientSelector<>(Funder.class, 0, 10, filter,
+                    null)).getObjects().size());
+            assertTrue(cache.getMisses() > 0);
+            assertEquals(cache.getHits(), registry.get(FilterExpressionCache.LOOKUPS).tag("result", "hit")
+                    .functionCounter().count());
+            assertEquals(cache.getMisses(), registry.get(FilterExpressionCache.LOOKUPS).tag("result", "miss")
+                    .functionCounter().count());
+            assertEquals(cache.getSize(), registry.get(FilterExpressionCache.SIZE).gauge().value());
+        }
+    }
+
+    @Test
+    public void testReadPerOperation() throws IOException {
+        String key = "key: " + UUID.randomUUID();
+
+        try (PassClient client = new ElideDataStorePassClient(refreshableElide, true)) {
+            User copi = new User();
+            copi.setDisplayName("copi");
+            client.createObject(copi);
+
+            Grant grant = new Grant();
+            grant.setLocalKey(key);
+            grant.getCoPis().add(copi);
+            client.createObject(grant);
+
+            Grant test = client.getObject(Grant.class, grant.getId());
+            assertEquals(key, test.getLocalKey());
+
+            PassClientSelector<Grant> selector = new PassClientSelector<>(Grant.class, 0, 10,
+                    RSQL.equals("localKey", key), null);
+            selector.setInclude(List.of("coPis"));
+
+            List<Grant> result = client.selectObjects(selector).getObjects();
+
+            assertEquals(1, result.size());
+            assertEquals("copi", result.get(0).getCoPis().get(0).getDisplayName());
+
+            try (PassClient session = client.readSession()) {
+                test = session.getObject(Grant.class, grant.getId());
+                assertEquals("copi", test.getCoPis().get(0).getDisplayName());
+            }
+        }
+    }
+
+    @Test
+    public void testPrefetchExecutor() throws IOException {
+        String key = "key: " + UUID.randomUUID();
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        AtomicInteger tasks = new AtomicInteger();
+
+        try (ElideDataStorePassClient client = new ElideDataStorePassClient(refreshableElide)) {
+            for (int i = 0; i < 5; i++) {
+                Funder funder = new Funder();
+                funder.setName("Funder " + i);
+                funder.setLocalKey(key);
+                client.createObject(funder);
+            }
+
+            client.setPrefetchExecutor(r -> {
+                tasks.incrementAndGet();
+                pool.execute(r);
+            });
+
+            PassClientSelector<Funder> selector = new PassClientSelector<>(Funder.class, 0, 2,
+                    RSQL.equals("localKey", key), null);
+
+            // Streams run one after another on the single thread
+            for (int i = 0; i < 2; i++) {
+                try (Stream<Funder> stream = client.streamObjects(selector, 2)) {
+                    assertEquals(5, stream.count());
+                }
+            }
+
+            assertEquals(2, tasks.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
 }
@@ -15,7 +15,19 @@
  */
 package org.eclipse.pass.object;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.util.Set;
+
 import com.yahoo.elide.RefreshableElide;
+import com.yahoo.elide.core.security.User;
+import org.eclipse.pass.object.model.Publication;
+import org.eclipse.pass.object.model.Submission;
+import org.eclipse.pass.object.model.SubmissionStatus;
+import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
 public class ElidePassClientTest extends PassClientTest {
@@ -24,6 +36,48 @@ public class ElidePassClientTest extends PassClientTest {
 
     @Override
     protected PassClient getNewClient() {
-        return new ElideDataStorePassClient(refreshableElide);
+        return new ElidePassClient(refreshableElide, new User(null));
+    }
+
+    @Test
+    public void testDirect() throws IOException {
+        try (ElidePassClient client = new ElidePassClient(refreshableElide, new User(null))) {
+            client.setDirect(true);
+
+            Publication pub = new Publication();
+            pub.setTitle("direct");
+            client.createObject(pub);
+
+            Submission sub = new Submission();
+            sub.setSubmissionStatus(SubmissionStatus.DRAFT);
+            sub.setSubmitterName("Bessie");
+            sub.setPublication(pub);
+            client.createObject(sub);
+
+            assertNotNull(sub.getId());
+
+            Submission test = client.getObject(Submission.class, sub.getId());
+
+            assertEquals("Bessie", test.getSubmitterName());
+            assertEquals("direct", test.getPublication().getTitle());
+
+            sub.setSubmissionStatus(SubmissionStatus.SUBMITTED);
+            sub.setSubmitterName("Clarabelle");
+            client.updateFields(sub, Set.of("submissionStatus"));
+
+            PassClientSelector<Submission> selector = new PassClientSelector<>(Submission.class);
+            selector.setFilter(RSQL.equals("publication.id", pub.getId().toString()));
+            selector.setComputeTotal(true);
+
+            PassClientResult<Submission> result = client.selectObjects(selector);
+
+            assertEquals(1, result.getTotal());
+            assertEquals(SubmissionStatus.SUBMITTED, result.getObjects().get(0).getSubmissionStatus());
+            assertEquals("Bessie", result.getObjects().get(0).getSubmitterName());
+
+            client.deleteObject(Submission.class, sub.getId());
+
+            assertNull(client.getObject(Submission.class, sub.getId()));
+        }
     }
 }
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.object;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.stream.Stream;
+
+import com.yahoo.elide.RefreshableElide;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.eclipse.pass.object.model.Funder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+public class MeteredPassClientTest extends PassClientTest {
+    @Autowired
+    protected RefreshableElide refreshableElide;
+
+    @Override
+    protected PassClient getNewClient() {
+        return new MeteredPassClient(new ElideDataStorePassClient(refreshableElide), new SimpleMeterRegistry());
+    }
+
+    private static long count(MeterRegistry registry, String operation, String outcome) {
+        return registry.get(MeteredPassClient.REQUESTS).tags("type", "funder", "operation", operation,
+                "outcome", outcome).timer().count();
+    }
+
+    @Test
+    public void testMetrics() throws IOException {
+        MeterRegistry registry = new SimpleMeterRegistry();
+
+        try (PassClient client = new MeteredPassClient(new ElideDataStorePassClient(refreshableElide), registry)) {
+            Funder funder = new Funder();
+            funder.setName("metered");
+            client.createObject(funder);
+
+            client.getObject(Funder.class, funder.getId());
+            assertNull(client.getObject(Funder.class, -1L));
+
+            PassClientSelector<Funder> selector = new PassClientSelector<>(Funder.class);
+            selector.setFilter(RSQL.equals("name", "metered"));
+
+            assertEquals(1, client.selectObjects(selector).getObjects().size());
+
+            try (Stream<Funder> stream = client.streamObjects(selector)) {
+                assertEquals(1, stream.count());
+            }
+
+            Funder batch = new Funder();
+            batch.setName("metered batch");
+            client.createObjects(List.of(batch));
+
+            assertEquals(1, count(registry, "create", "success"));
+            assertEquals(1, count(registry, "get", "success"));
+            assertEquals(1, count(registry, "get", "not_found"));
+            assertEquals(1, count(registry, "select", "success"));
+            assertEquals(1, count(registry, "createObjects", "success"));
+
+            assertEquals(1.0, registry.get(MeteredPassClient.ROWS).tags("type", "funder", "operation", "select")
+                    .summary().totalAmount());
+            assertEquals(1.0, registry.get(MeteredPassClient.ROWS).tags("type", "funder", "operation", "stream")
+                    .summary().totalAmount());
+            assertEquals(1.0, registry.get(MeteredPassClient.OBJECTS).tags("type", "funder",
+                    "operation", "createObjects", "outcome", "success").counter().count());
+        }
+    }
+}
@@ -18,18 +18,27 @@ package org.eclipse.pass.object;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
 import java.net.URI;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.eclipse.pass.main.IntegrationTest;
 import org.eclipse.pass.object.model.AggregatedDepositStatus;
+import org.eclipse.pass.object.model.AwardStatus;
 import org.eclipse.pass.object.model.Funder;
 import org.eclipse.pass.object.model.Grant;
 import org.eclipse.pass.object.model.Journal;
@@ -67,6 +76,28 @@ public abstract class PassClientTest extends IntegrationTest {
         client = getNewClient();
     }
 
+    /**
+     * Create funders named "Funder 0" onwards which share a new local key.
+     *
+     * @param num_funders number of funders to create
+     * @return local key of the funders
+     * @throws IOException if a funder cannot be created
+     */
+    private String create_funders(int num_funders) throws IOException {
+        String key = "key: " + UUID.randomUUID();
+
+        for (int i = 0; i < num_funders; i++) {
+            Funder funder = new Funder();
+
+            funder.setName("Funder " + i);
+            funder.setLocalKey(key);
+
+            client.createObject(funder);
+        }
+
+        return key;
+    }
+
     @Test
     public void testCreateObject() throws IOException {
         Journal journal = new Journal();
@@ -90,6 +121,27 @@ public abstract class PassClientTest extends IntegrationTest {
         assertNull(test);
     }
 
+    @Test
+    public void testGetObjects() throws IOException {
+        List<Long> ids = new ArrayList<>();
+
+        for (int i = 0; i < 3; i++) {
+            Journal journal = new Journal();
+            journal.setJournalName("Multi-get journal " + i);
+            client.createObject(journal);
+            ids.add(journal.getId());
+        }
+
+        List<Journal> test = client.getObjects(Journal.class, List.of(ids.get(2), 10000000L, ids.get(0), ids.get(1)));
+
+        assertEquals(4, test.size());
+        assertEquals(ids.get(2), test.get(0).getId());
+        assertNull(test.get(1));
+        assertEquals(ids.get(0), test.get(2).getId());
+        assertEquals(ids.get(1), test.get(3).getId());
+        assertEquals("Multi-get journal 1", test.get(3).getJournalName());
+    }
+
     @Test
     public void testUpdateObject() throws IOException {
         Submission submission = new Submission();
@@ -118,6 +170,111 @@ public abstract class PassClientTest extends IntegrationTest {
         // assertEquals(submission, test);
     }
 
+    @Test
+    public void testUpsert() throws IOException {
+        String key = "upsert:" + UUID.randomUUID();
+
+        Grant grant = new Grant();
+        grant.setLocalKey(key);
+        grant.setAwardNumber("award 1");
+
+        client.upsert(grant, "localKey");
+
+        assertNotNull(grant.getId());
+
+        Grant update = new Grant();
+        update.setLocalKey(key);
+        update.setAwardNumber("award 2");
+
+        client.upsert(update, "localKey");
+
+        assertEquals(grant.getId(), update.getId());
+        assertEquals("award 2", client.getObject(Grant.class, grant.getId()).getAwardNumber());
+
+        // Collections match on any value
+        String locator = "upsert:" + UUID.randomUUID();
+
+        User user = new User();
+        user.setLocatorIds(List.of(locator));
+        user.setDisplayName("one");
+
+        client.upsert(user, "locatorIds");
+
+        User other = new User();
+        other.setLocatorIds(List.of("upsert:" + UUID.randomUUID(), locator));
+        other.setDisplayName("two");
+
+        client.upsert(other, "locatorIds");
+
+        assertEquals(user.getId(), other.getId());
+        assertEquals("two", client.getObject(User.class, user.getId()).getDisplayName());
+
+        assertThrows(IOException.class, () -> client.upsert(new Grant(), "localKey"));
+    }
+
+    @Test
+    public void testConcurrentUpsert() throws Exception {
+        String key = "upsert:" + UUID.randomUUID();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<Long>> ids = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < 8; i++) {
+                String award = "award " + i;
+
+                // Each client has its own transactions, as separate nodes would
+                ids.add(executor.submit(() -> {
+                    try (PassClient other = getNewClient()) {
+                        Grant grant = new Grant();
+                        grant.setLocalKey(key);
+                        grant.setAwardNumber(award);
+
+                        other.upsert(grant, "localKey");
+
+                        return grant.getId();
+                    }
+                }));
+            }
+
+            Set<Long> distinct = new HashSet<>();
+
+            for (Future<Long> id : ids) {
+                distinct.add(id.get(30, TimeUnit.SECONDS));
+            }
+
+            assertEquals(1, distinct.size());
+        } finally {
+            executor.shutdown();
+        }
+
+        PassClientSelector<Grant> selector = new PassClientSelector<>(Grant.class);
+        selector.setFilter(RSQL.equals("localKey", key));
+
+        assertEquals(1, client.selectObjects(selector).getTotal());
+    }
+
+    @Test
+    public void testUpdateFields() throws IOException {
+        Submission submission = new Submission();
+
+        submission.setSubmissionStatus(SubmissionStatus.DRAFT);
+        submission.setSubmitterName("Bessie");
+
+        client.createObject(submission);
+
+        submission.setSubmissionStatus(SubmissionStatus.SUBMITTED);
+        submission.setSubmitterName("Clarabelle");
+
+        client.updateFields(submission, Set.of("submissionStatus"));
+
+        Submission test = client.getObject(submission.getClass(), submission.getId());
+
+        assertEquals(SubmissionStatus.SUBMITTED, test.getSubmissionStatus());
+        assertEquals("Bessie", test.getSubmitterName());
+
+        assertThrows(IOException.class, () -> client.updateFields(submission, Set.of("moo")));
+    }
+
     @Test
     public void testMultipleUpdatesToSameObject() throws IOException {
         Funder funder = new Funder();
@@ -233,6 +390,190 @@ public abstract class PassClientTest extends IntegrationTest {
         assertEquals(result.getObjects().get(0).getAwardNumber(), "award:3");
     }
 
+    @Test
+    public void testSelectObjectsSorted() throws IOException {
+        String key = "key: " + UUID.randomUUID();
+        String[] names = {"b", "c", "a", "c"};
+
+        for (String name : names) {
+            Funder funder = new Funder();
+
+            funder.setName(name);
+            funder.setLocalKey(key);
+
+            client.createObject(funder);
+        }
+
+        String filter = RSQL.equals("localKey", key);
+        List<Funder> result = client.selectObjects(new PassClientSelector<>(Funder.class, 0, 100, filter,
+                "-name")).getObjects();
+
+        assertEquals(List.of("c", "c", "b", "a"), result.stream().map(Funder::getName).collect(Collectors.toList()));
+        assertTrue(result.get(0).getId() < result.get(1).getId());
+
+        result = client.selectObjects(new PassClientSelector<>(Funder.class, 0, 100, filter, "name")).getObjects();
+
+        assertEquals(List.of("a", "b", "c", "c"), result.stream().map(Funder::getName).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testSelectObjectsPassFilter() throws IOException {
+        String key = "key: " + UUID.randomUUID();
+        ZonedDateTime now = ZonedDateTime.now();
+
+        for (int i = 0; i < 4; i++) {
+            Funder funder = new Funder();
+            funder.setName("Funder " + i);
+
+            client.createObject(funder);
+
+            Grant grant = new Grant();
+            grant.setAwardNumber("award:" + i);
+            grant.setAwardStatus(i % 2 == 0 ? AwardStatus.ACTIVE : AwardStatus.TERMINATED);
+            grant.setLocalKey(key);
+            grant.setStartDate(now.plusDays(i));
+            grant.setPrimaryFunder(i < 3 ? funder : null);
+
+            client.createObject(grant);
+        }
+
+        PassFilter local_key = PassFilter.field(Grant.class, "localKey").eq(key);
+        PassClientSelector<Grant> selector = new PassClientSelector<>(Grant.class, 0, 100, null, "awardNumber");
+
+        selector.setFilter(PassFilter.and(local_key,
+                PassFilter.field(Grant.class, "awardStatus").eq(AwardStatus.ACTIVE)));
+        assertEquals(List.of("award:0", "award:2"), client.selectObjects(selector).getObjects().stream()
+                .map(Grant::getAwardNumber).collect(Collectors.toList()));
+
+        selector.setFilter(PassFilter.and(local_key,
+                PassFilter.field(Grant.class, "startDate").range(now.plusHours(12), now.plusHours(60))));
+        assertEquals(List.of("award:1", "award:2"), client.selectObjects(selector).getObjects().stream()
+                .map(Grant::getAwardNumber).collect(Collectors.toList()));
+
+        selector.setFilter(PassFilter.and(local_key, PassFilter.or(
+                PassFilter.field(Grant.class, "awardNumber").in("award:0", "award:1"),
+                PassFilter.field(Grant.class, "primaryFunder.id").isNull())));
+        assertEquals(List.of("award:0", "award:1", "award:3"), client.selectObjects(selector).getObjects().stream()
+                .map(Grant::getAwardNumber).collect(Collectors.toList()));
+
+        selector.setFilter(PassFilter.and(local_key,
+                PassFilter.field(Grant.class, "primaryFunder.name").like("Funder*"),
+                PassFilter.field(Grant.class, "awardNumber").out("award:1")));
+        assertEquals(List.of("award:0", "award:2"), client.selectObjects(selector).getObjects().stream()
+                .map(Grant::getAwardNumber).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void testSelectObjectsInclude() throws IOException {
+        String key = "key: " + UUID.randomUUID();
+
+        for (int i = 0; i < 3; i++) {
+            User pi = new User();
+            pi.setDisplayName("pi " + i);
+
+            client.createObject(pi);
+
+            User copi = new User();
+            copi.setDisplayName("copi " + i);
+
+            client.createObject(copi);
+
+            Grant grant = new Grant();
+            grant.setAwardNumber("award:" + i);
+            grant.setLocalKey(key);
+            grant.setPi(pi);
+            grant.getCoPis().add(copi);
+
+            client.createObject(grant);
+        }
+
+        PassClientSelector<Grant> selector = new PassClientSelector<>(Grant.class, 0, 100,
+                RSQL.equals("localKey", key), "awardNumber");
+        selector.setInclude(List.of("pi", "coPis"));
+
+        List<Grant> result = client.selectObjects(selector).getObjects();
+
+        assertEquals(3, result.size());
+
+        for (int i = 0; i < result.size(); i++) {
+            assertEquals("pi " + i, result.get(i).getPi().getDisplayName());
+            assertEquals("copi " + i, result.get(i).getCoPis().get(0).getDisplayName());
+        }
+
+        selector.setInclude(List.of("pi.nope"));
+
+        assertThrows(IOException.class, () -> client.selectObjects(selector));
+    }
+
+    @Test
+    public void testInTransaction() throws IOException {
+        Publication pub = new Publication();
+        pub.setTitle("title: " + UUID.randomUUID());
+
+        Submission sub = new Submission();
+        sub.setPublication(pub);
+
+        SubmissionEvent event = new SubmissionEvent();
+        event.setSubmission(sub);
+        event.setComment("created");
+
+        Long event_id = client.inTransaction(tx -> {
+            tx.createObject(pub);
+            tx.createObject(sub);
+            tx.createObject(event);
+
+            return event.getId();
+        });
+
+        SubmissionEvent test = client.getObject(SubmissionEvent.class, event_id);
+
+        assertNotNull(test);
+        assertEquals(pub.getTitle(), test.getSubmission().getPublication().getTitle());
+
+        // Nothing is committed if the work fails
+        Publication failed_pub = new Publication();
+        failed_pub.setTitle("title: " + UUID.randomUUID());
+
+        assertThrows(IOException.class, () -> client.inTransaction(tx -> {
+            tx.createObject(failed_pub);
+            tx.deleteObject(Publication.class, 10000000L);
+            return null;
+        }));
+
+        assertEquals(0, client.selectObjects(new PassClientSelector<>(Publication.class, 0, 10,
+                RSQL.equals("title", failed_pub.getTitle()), null)).getObjects().size());
+    }
+
+    @Test
+    public void testCountObjects() throws IOException {
+        int num_funders = 6;
+        String key = create_funders(num_funders);
+
+        String filter = RSQL.equals("localKey", key);
+
+        assertEquals(num_funders, client.countObjects(new PassClientSelector<>(Funder.class, 0, 2, filter, null)));
+        assertEquals(0, client.countObjects(new PassClientSelector<>(Funder.class, 0, 2,
+                RSQL.equals("localKey", "key: " + UUID.randomUUID()), null)));
+    }
+
+    @Test
+    public void testSelectObjectsWithoutTotal() throws IOException {
+        int num_funders = 5;
+        String key = create_funders(num_funders);
+
+        PassClientSelector<Funder> selector = new PassClientSelector<>(Funder.class, 0, 2,
+                RSQL.equals("localKey", key), null);
+
+        assertEquals(num_funders, client.selectObjects(selector).getTotal());
+
+        // The total is not requested, so it is not known
+        selector.setComputeTotal(false);
+        PassClientResult<Funder> result = client.selectObjects(selector);
+
+        assertEquals(2, result.getObjects().size());
+        assertEquals(-1, result.getTotal());
+    }
+
     @Test
     public void testStreamObjects() throws IOException {
         List<Journal> journals = new ArrayList<>();
@@ -276,4 +617,134 @@ public abstract class PassClientTest extends IntegrationTest {
             assertTrue(p.getJournal().getJournalName().startsWith("Journal"));
         });
     }
+
+    @Test
+    public void testStreamObjectsKeyset() throws IOException {
+        int num_funders = 7;
+        String key = create_funders(num_funders);
+
+        PassClientSelector<Funder> selector = new PassClientSelector<>(Funder.class, 0, 3,
+                RSQL.equals("localKey", key), null);
+        selector.setKeysetPagination(true);
+
+        List<Funder> funders = client.streamObjects(selector).collect(Collectors.toList());
+
+        assertEquals(num_funders, funders.size());
+
+        for (int i = 1; i < funders.size(); i++) {
+            assertTrue(funders.get(i - 1).getId() < funders.get(i).getId());
+            assertEquals(key, funders.get(i).getLocalKey());
+        }
+    }
+
+    @Test
+    public void testParallelStreamObjects() throws IOException {
+        int num_funders = 23;
+        String key = create_funders(num_funders);
+
+        PassClientSelector<Funder> selector = new PassClientSelector<>(Funder.class, 0, 4,
+                RSQL.equals("localKey", key), "id");
+
+        List<Funder> funders;
+        try (Stream<Funder> stream = client.parallelStreamObjects(selector, 4)) {
+            funders = stream.collect(Collectors.toList());
+        }
+
+        assertEquals(num_funders, funders.size());
+
+        for (int i = 1; i < funders.size(); i++) {
+            assertTrue(funders.get(i - 1).getId() < funders.get(i).getId());
+            assertEquals(key, funders.get(i).getLocalKey());
+        }
+    }
+
+    @Test
+    public void testParallelStreamObjectsUnsorted() throws IOException {
+        int num_funders = 17;
+        String key = create_funders(num_funders);
+
+        PassClientSelector<Funder> selector = new PassClientSelector<>(Funder.class, 0, 3,
+                RSQL.equals("localKey", key), null);
+
+        // Ranges retrieved by separate queries must not overlap even without a sorting
+        List<Long> ids;
+        try (Stream<Funder> stream = client.parallelStreamObjects(selector, 4)) {
+            ids = stream.map(Funder::getId).collect(Collectors.toList());
+        }
+
+        assertEquals(num_funders, ids.size());
+        assertEquals(num_funders, new HashSet<>(ids).size());
+
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(ids.get(i - 1) < ids.get(i));
+        }
+    }
+
+    @Test
+    public void testStreamObjectsPrefetch() throws IOException {
+        int num_funders = 11;
+        String key = create_funders(num_funders);
+
+        PassClientSelector<Funder> selector = new PassClientSelector<>(Funder.class, 0, 2,
+                RSQL.equals("localKey", key), null);
+
+        try (Stream<Funder> stream = client.streamObjects(selector, 3)) {
+            List<String> names = stream.map(Funder::getName).collect(Collectors.toList());
+
+            assertEquals(num_funders, names.size());
+            names.forEach(n -> assertTrue(n.startsWith("Funder")));
+        }
+
+        // Closing a partially consumed stream stops the prefetching
+        try (Stream<Funder> stream = client.streamObjects(selector, 3)) {
+            assertEquals(1, stream.limit(1).count());
+        }
+    }
+
+    @Test
+    public void testBatchObjects() throws IOException {
+        int num_funders = 5;
+        List<Funder> funders = new ArrayList<>();
+
+        for (int i = 0; i < num_funders; i++) {
+            Funder funder = new Funder();
+            funder.setName("Batch funder " + i);
+            funders.add(funder);
+        }
+
+        PassClientBatchResult result = client.createObjects(funders);
+
+        assertTrue(result.isSuccess());
+        assertEquals(num_funders, result.getSize());
+        funders.forEach(f -> assertNotNull(f.getId()));
+
+        funders.forEach(f -> f.setLocalKey("batch:" + f.getId()));
+        result = client.updateObjects(funders);
+
+        assertTrue(result.isSuccess());
+
+        refreshClient();
+
+        for (Funder funder : funders) {
+            Funder test = client.getObject(Funder.class, funder.getId());
+            assertEquals(funder.getName(), test.getName());
+            assertEquals(funder.getLocalKey(), test.getLocalKey());
+        }
+
+        // A missing object fails without preventing the others from being deleted
+        Funder missing = new Funder();
+        missing.setId(10000000L);
+
+        List<Funder> targets = new ArrayList<>(funders);
+        targets.add(2, missing);
+
+        result = client.deleteObjects(targets);
+
+        assertEquals(1, result.getFailures().size());
+        assertTrue(result.getFailures().containsKey(2));
+
+        for (Funder funder : funders) {
+            assertNull(client.getObject(Funder.class, funder.getId()));
+        }
+    }
 }
@@ -0,0 +1,279 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.object;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import javax.persistence.EntityManagerFactory;
+
+import com.yahoo.elide.Elide;
+import com.yahoo.elide.ElideSettings;
+import com.yahoo.elide.RefreshableElide;
+import com.yahoo.elide.core.RequestScope;
+import com.yahoo.elide.core.datastore.DataStoreTransaction;
+import com.yahoo.elide.core.security.User;
+import org.eclipse.pass.object.model.PassEntity;
+
+/**
+ * Transaction handling shared by the clients which run in process against Elide.
+ *
+ * By default one read transaction is kept open for the life of the client. A client which reads
+ * per operation instead uses a short lived read transaction for each object or page it retrieves.
+ * Streams which retrieve pages concurrently use additional read transactions which are closed
+ * with the stream or the client.
+ */
+abstract class AbstractElidePassClient implements PassClient {
+    /**
+     * Default number of objects written together by batch operations.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    final RefreshableElide refreshableElide;
+    final Elide elide;
+    final ElideSettings settings;
+    final RequestScopeFactory scopes;
+    final DataStoreTransaction read_tx;
+    private final List<DataStoreTransaction> split_txs;
+    int batch_size;
+    private Executor prefetch_executor;
+
+    /**
+     * @param refreshableElide Elide to use
+     * @param user User making requests or null
+     * @param read_per_operation whether to use a read transaction per operation instead of one per client
+     */
+    AbstractElidePassClient(RefreshableElide refreshableElide, User user, boolean read_per_operation) {
+        this.refreshableElide = refreshableElide;
+        this.elide = refreshableElide.getElide();
+        this.settings = elide.getElideSettings();
+        this.scopes = new RequestScopeFactory(settings, user);
+
+        ConvertedCollectionFilters.register(settings.getDictionary());
+
+        // Keep a read transaction open for interacting with objects which have lazy loading relationships
+        this.read_tx = read_per_operation ? null : elide.getDataStore().beginReadTransaction();
+        this.split_txs = new ArrayList<>();
+        this.batch_size = DEFAULT_BATCH_SIZE;
+    }
+
+    /**
+     * Set the number of objects written together by batch operations.
+     *
+     * @param batch_size number of objects written together
+     */
+    public void setBatchSize(int batch_size) {
+        this.batch_size = batch_size;
+    }
+
+    /**
+     * Set the executor which retrieves pages for {@link #streamObjects(PassClientSelector, int)}. Each stream
+     * retrieving pages occupies a thread of the executor and holds up to prefetch + 2 read transactions, so the
+     * number of threads should be bounded to fit the connection pool. By default a shared executor with
+     * four threads is used.
+     *
+     * @param executor executor retrieving pages or null for the default
+     */
+    public void setPrefetchExecutor(Executor executor) {
+        this.prefetch_executor = executor;
+    }
+
+    /**
+     * The natural key is locked and the lookup and write are done in one transaction.
+     */
+    @Override
+    public <T extends PassEntity> void upsert(T obj, String... fields) throws IOException {
+        inTransaction(tx -> {
+            tx.upsert(obj, fields);
+            return null;
+        });
+    }
+
+    /**
+     * @return cache of parsed selector filters shared by all clients of the same Elide
+     */
+    public FilterExpressionCache getFilterCache() {
+        return FilterExpressionCache.of(settings.getDictionary());
+    }
+
+    interface ReadOperation<R> {
+        R apply(DataStoreTransaction tx) throws IOException;
+    }
+
+    // Use the client read transaction if there is one and otherwise a transaction just for the operation
+    <R> R read(DataStoreTransaction tx, ReadOperation<R> op) throws IOException {
+        if (tx != null) {
+            return op.apply(tx);
+        }
+
+        try (DataStoreTransaction op_tx = elide.getDataStore().beginReadTransaction()) {
+            return op.apply(op_tx);
+        }
+    }
+
+    RequestScope get_scope(String path, DataStoreTransaction tx) {
+        return scopes.create(path, tx);
+    }
+
+    String get_path(Class<?> type, Long id) {
+        return RequestScopeFactory.getPath(type, id);
+    }
+
+    /**
+     * Select a page of objects using the given transaction.
+     *
+     * @param <T> object type
+     * @param selector determines which objects to retrieve
+     * @param tx transaction to read with
+     * @return Matching objects
+     * @throws IOException if operation fails
+     */
+    abstract <T extends PassEntity> PassClientResult<T> select_objects(PassClientSelector<T> selector,
+            DataStoreTransaction tx) throws IOException;
+
+    @Override
+    public <T extends PassEntity> PassClientResult<T> selectObjects(PassClientSelector<T> selector) throws IOException {
+        return read(read_tx, tx -> select_objects(selector, tx));
+    }
+
+    /**
+     * Objects are counted by a COUNT query of the JPA store when its entity manager factory can be found
+     * and otherwise by selecting one object along with the total.
+     */
+    @Override
+    public <T extends PassEntity> long countObjects(PassClientSelector<T> selector) throws IOException {
+        EntityManagerFactory factory = PassClientCounts.getFactory(settings.getDictionary());
+
+        if (factory == null) {
+            return PassClient.super.countObjects(selector);
+        }
+
+        PassClientSelector<T> count_selector = new PassClientSelector<>(selector);
+        count_selector.setOffset(0);
+
+        // The query runs in its own entity manager, so the scope is only used to parse the filter
+        RequestScope scope = get_scope(get_path(selector.getType(), null), read_tx);
+
+        return PassClientCounts.count(factory, scope, count_selector);
+    }
+
+    @Override
+    public <T extends PassEntity> Stream<T> streamObjects(PassClientSelector<T> selector, int prefetch)
+            throws IOException {
+        if (prefetch < 1) {
+            return streamObjects(selector);
+        }
+
+        PassClientPrefetchSpliterator<T> iter = new PassClientPrefetchSpliterator<>(
+                new SplitPageSource<>(read_tx, new ArrayList<>()), selector, prefetch, prefetch_executor);
+
+        return StreamSupport.stream(iter, false).onClose(iter::close);
+    }
+
+    @Override
+    public <T extends PassEntity> Stream<T> parallelStreamObjects(PassClientSelector<T> selector, int parallelism)
+            throws IOException {
+        List<DataStoreTransaction> stream_txs = new ArrayList<>();
+        PassClientPageSource<T> source = new SplitPageSource<>(read_tx, stream_txs);
+
+        return StreamSupport.stream(PassClientSpliterator.splittable(source, selector, parallelism), true)
+                .onClose(() -> close_split_txs(stream_txs));
+    }
+
+    private void close_split_txs(List<DataStoreTransaction> txs) {
+        IOException error = null;
+
+        synchronized (split_txs) {
+            for (DataStoreTransaction tx : txs) {
+                if (split_txs.remove(tx)) {
+                    try {
+                        tx.close();
+                    } catch (IOException e) {
+                        error = e;
+                    }
+                }
+            }
+        }
+
+        if (error != null) {
+            throw new UncheckedIOException(error);
+        }
+    }
+
+    /**
+     * Selects pages using a transaction. Forks use a new read transaction which is closed with
+     * the fork, the stream, or the client.
+     */
+    private class SplitPageSource<T extends PassEntity> implements PassClientPageSource<T> {
+        private final DataStoreTransaction tx;
+        private final List<DataStoreTransaction> stream_txs;
+
+        SplitPageSource(DataStoreTransaction tx, List<DataStoreTransaction> stream_txs) {
+            this.tx = tx;
+            this.stream_txs = stream_txs;
+        }
+
+        @Override
+        public PassClientResult<T> select(PassClientSelector<T> selector) throws IOException {
+            return read(tx, t -> select_objects(selector, t));
+        }
+
+        @Override
+        public PassClientPageSource<T> fork() {
+            DataStoreTransaction fork_tx = elide.getDataStore().beginReadTransaction();
+
+            synchronized (split_txs) {
+                split_txs.add(fork_tx);
+                stream_txs.add(fork_tx);
+            }
+
+            return new SplitPageSource<>(fork_tx, stream_txs);
+        }
+
+        @Override
+        public void close() throws IOException {
+            boolean owned;
+
+            synchronized (split_txs) {
+                owned = split_txs.remove(tx);
+                stream_txs.remove(tx);
+            }
+
+            if (owned) {
+                tx.close();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (split_txs) {
+            for (DataStoreTransaction tx : split_txs) {
+                tx.close();
+            }
+
+            split_txs.clear();
+        }
+
+        if (read_tx != null) {
+            read_tx.close();
+        }
+    }
+}
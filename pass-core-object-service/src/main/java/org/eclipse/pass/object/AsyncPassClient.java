@@ -0,0 +1,327 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.object;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.eclipse.pass.object.model.PassEntity;
+
+/**
+ * Asynchronous counterpart of PassClient. Each operation runs on a bounded executor with its own
+ * PassClient from a supplier. That client is closed when the operation finishes, so returned objects
+ * are detached and must not load relationships lazily. A session is never shared between the thread
+ * running an operation and the caller. Relationships which will be used must be loaded inside the
+ * operation by including them with {@link #selectObjects(PassClientSelector)}.
+ *
+ * The executor should have no more threads than the database connection pool. Operations beyond
+ * what the queue holds fail with a RejectedExecutionException. Cancelling a returned future before
+ * its operation starts prevents the operation from running. Cancelling it with mayInterruptIfRunning
+ * while the operation runs interrupts the thread running it. Futures derived from it with thenApply
+ * and similar methods do not propagate cancellation.
+ *
+ * A listener can be set to time each operation.
+ */
+public class AsyncPassClient implements AutoCloseable {
+    /**
+     * Default maximum number of operations waiting for a thread.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+    /**
+     * Notified when each operation finishes.
+     */
+    public interface Listener {
+        /**
+         * @param operation name of the PassClient method
+         * @param type type of object operated on
+         * @param nanos time spent running the operation
+         * @param failure exception thrown by the operation or null if it succeeded
+         */
+        void operationCompleted(String operation, Class<?> type, long nanos, Throwable failure);
+    }
+
+    private interface Operation<R> {
+        R apply(PassClient client) throws IOException;
+    }
+
+    private final Supplier<PassClient> clients;
+    private final ExecutorService executor;
+    private final boolean owns_executor;
+    private final Object lock;
+    private int running;
+    private boolean closed;
+    private volatile Listener listener;
+
+    /**
+     * @param clients supplier of a client for each operation
+     * @param threads number of threads, at most the size of the database connection pool
+     */
+    public AsyncPassClient(Supplier<PassClient> clients, int threads) {
+        this(clients, threads, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * @param clients supplier of a client for each operation
+     * @param threads number of threads, at most the size of the database connection pool
+     * @param queue_capacity maximum number of operations waiting for a thread
+     */
+    public AsyncPassClient(Supplier<PassClient> clients, int threads, int queue_capacity) {
+        this(clients, new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(queue_capacity), thread_factory()), true);
+    }
+
+    /**
+     * The executor is not shut down when this client is closed.
+     *
+     * @param clients supplier of a client for each operation
+     * @param executor executor to run operations on
+     */
+    public AsyncPassClient(Supplier<PassClient> clients, ExecutorService executor) {
+        this(clients, executor, false);
+    }
+
+    private AsyncPassClient(Supplier<PassClient> clients, ExecutorService executor, boolean owns_executor) {
+        this.clients = clients;
+        this.executor = executor;
+        this.owns_executor = owns_executor;
+        this.lock = new Object();
+    }
+
+    private static ThreadFactory thread_factory() {
+        AtomicInteger count = new AtomicInteger();
+
+        return r -> {
+            Thread thread = new Thread(r, "async-pass-client-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * @param listener listener to notify when operations finish or null for none
+     */
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * @param <T> object type
+     * @param obj object to create
+     * @return future completed with the object after its id is set
+     * @see PassClient#createObject(PassEntity)
+     */
+    public <T extends PassEntity> CompletableFuture<T> createObject(T obj) {
+        return submit("createObject", obj.getClass(), client -> {
+            client.createObject(obj);
+            return obj;
+        });
+    }
+
+    /**
+     * @param <T> object type
+     * @param obj object to update
+     * @return future completed with the object
+     * @see PassClient#updateObject(PassEntity)
+     */
+    public <T extends PassEntity> CompletableFuture<T> updateObject(T obj) {
+        return submit("updateObject", obj.getClass(), client -> {
+            client.updateObject(obj);
+            return obj;
+        });
+    }
+
+    /**
+     * @param <T> object type
+     * @param type type of object
+     * @param id identifier of object
+     * @return future completed with the object or null if it does not exist
+     * @see PassClient#getObject(Class, Long)
+     */
+    public <T extends PassEntity> CompletableFuture<T> getObject(Class<T> type, Long id) {
+        return submit("getObject", type, client -> client.getObject(type, id));
+    }
+
+    /**
+     * Relationships named by the include paths of the selector are loaded before the client is closed.
+     *
+     * @param <T> object type
+     * @param selector selector of objects
+     * @return future completed with the result
+     * @see PassClient#selectObjects(PassClientSelector)
+     */
+    public <T extends PassEntity> CompletableFuture<PassClientResult<T>> selectObjects(
+            PassClientSelector<T> selector) {
+        return submit("selectObjects", selector.getType(), client -> client.selectObjects(selector));
+    }
+
+    /**
+     * @param <T> object type
+     * @param type type of object
+     * @param id identifier of object
+     * @return future completed when the object is deleted
+     * @see PassClient#deleteObject(Class, Long)
+     */
+    public <T extends PassEntity> CompletableFuture<Void> deleteObject(Class<T> type, Long id) {
+        return submit("deleteObject", type, client -> {
+            client.deleteObject(type, id);
+            return null;
+        });
+    }
+
+    private <R> CompletableFuture<R> submit(String name, Class<?> type, Operation<R> op) {
+        OperationFuture<R> result = new OperationFuture<>();
+
+        synchronized (lock) {
+            if (closed) {
+                result.completeExceptionally(new RejectedExecutionException("AsyncPassClient is closed"));
+                return result;
+            }
+
+            running++;
+        }
+
+        try {
+            executor.execute(() -> run(name, type, op, result));
+        } catch (RejectedExecutionException e) {
+            finished();
+            result.completeExceptionally(e);
+        }
+
+        return result;
+    }
+
+    private <R> void run(String name, Class<?> type, Operation<R> op, OperationFuture<R> result) {
+        try {
+            // Cancelled while waiting
+            if (!result.start()) {
+                return;
+            }
+
+            long start = System.nanoTime();
+            Throwable failure = null;
+
+            R value = null;
+
+            // Complete only after the client is closed so the caller never shares its session
+            try (PassClient client = clients.get()) {
+                value = op.apply(client);
+            } catch (Exception | Error e) {
+                failure = e;
+            } finally {
+                result.finish();
+            }
+
+            if (failure == null) {
+                result.complete(value);
+            } else {
+                result.completeExceptionally(failure);
+            }
+
+            Listener current = listener;
+
+            if (current != null) {
+                current.operationCompleted(name, type, System.nanoTime() - start, failure);
+            }
+        } finally {
+            finished();
+        }
+    }
+
+    private void finished() {
+        synchronized (lock) {
+            running--;
+            lock.notifyAll();
+        }
+    }
+
+    /**
+     * Reject new operations and wait for the operations already submitted to finish. The executor is
+     * shut down if it was created by this client.
+     */
+    @Override
+    public void close() {
+        boolean interrupted = false;
+
+        synchronized (lock) {
+            closed = true;
+
+            while (running > 0) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+
+        if (owns_executor) {
+            executor.shutdown();
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Future which interrupts the thread running its operation when cancelled with mayInterruptIfRunning.
+     */
+    private static class OperationFuture<R> extends CompletableFuture<R> {
+        private Thread runner;
+        private boolean interrupted;
+
+        // Returns false if the operation was cancelled before it started
+        synchronized boolean start() {
+            if (isDone()) {
+                return false;
+            }
+
+            runner = Thread.currentThread();
+
+            return true;
+        }
+
+        // Clear an interrupt from cancellation so the thread can be reused
+        synchronized void finish() {
+            runner = null;
+
+            if (interrupted) {
+                Thread.interrupted();
+            }
+        }
+
+        @Override
+        public synchronized boolean cancel(boolean mayInterruptIfRunning) {
+            boolean result = super.cancel(mayInterruptIfRunning);
+
+            if (result && mayInterruptIfRunning && runner != null) {
+                interrupted = true;
+                runner.interrupt();
+            }
+
+            return result;
+        }
+    }
+}
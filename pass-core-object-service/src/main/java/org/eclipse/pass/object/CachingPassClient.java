@@ -0,0 +1,355 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.object;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.eclipse.pass.object.model.PassEntity;
+import org.hibernate.Hibernate;
+
+/**
+ * PassClient which serves getObject from a {@link PassEntityCache} for the types the cache holds
+ * and otherwise delegates to another PassClient.
+ *
+ * Objects are cached with their relationships loaded so they can be used after the client which
+ * loaded them is closed. They are loaded through a {@link PassClient#readSession()} of the delegate, so
+ * that relationships can be loaded even if the delegate reads per operation. The cache holds a detached
+ * copy of the whole object graph and each getObject returns a new copy of that graph, so callers may modify
+ * what they get. Changing any object of the graph removes the cached object. Changes made through this client
+ * remove the changed objects from the cache once they are committed. Changes made elsewhere are only seen
+ * once the cached object expires, unless they are made through the JSON:API.
+ *
+ * Within {@link #inTransaction(UnitOfWork)} objects are read from the transaction rather than the cache,
+ * so that uncommitted changes are never cached, and the changed objects are removed after the commit.
+ */
+public class CachingPassClient implements PassClient {
+    private final PassClient client;
+    private final PassEntityCache cache;
+    private final List<Runnable> pending;
+
+    /**
+     * @param client client to delegate to
+     * @param cache cache of objects
+     */
+    public CachingPassClient(PassClient client, PassEntityCache cache) {
+        this(client, cache, null);
+    }
+
+    /**
+     * @param client client to delegate to
+     * @param cache cache of objects
+     * @param pending invalidations to run after commit or null to invalidate immediately
+     */
+    private CachingPassClient(PassClient client, PassEntityCache cache, List<Runnable> pending) {
+        this.client = client;
+        this.cache = cache;
+        this.pending = pending;
+    }
+
+    /**
+     * Use the default cache.
+     *
+     * @param client client to delegate to
+     */
+    public CachingPassClient(PassClient client) {
+        this(client, PassEntityCache.getDefault());
+    }
+
+    @Override
+    public <T extends PassEntity> void createObject(T obj) throws IOException {
+        client.createObject(obj);
+    }
+
+    @Override
+    public <T extends PassEntity> void updateObject(T obj) throws IOException {
+        try {
+            client.updateObject(obj);
+        } finally {
+            invalidate(obj);
+        }
+    }
+
+    @Override
+    public <T extends PassEntity> void updateFields(T obj, Set<String> fields) throws IOException {
+        try {
+            client.updateFields(obj, fields);
+        } finally {
+            invalidate(obj);
+        }
+    }
+
+    @Override
+    public <T extends PassEntity> void upsert(T obj, String... fields) throws IOException {
+        try {
+            client.upsert(obj, fields);
+        } finally {
+            invalidate(obj);
+        }
+    }
+
+    @Override
+    public <T extends PassEntity> T getObject(Class<T> type, Long id) throws IOException {
+        if (pending != null || !cache.isCached(type)) {
+            return client.getObject(type, id);
+        }
+
+        T obj = cache.get(type, id);
+
+        if (obj == null) {
+            // An object invalidated while this one is loaded may be stale, so it is then not cached
+            long version = cache.getVersion(type);
+
+            try (PassClient session = client.readSession()) {
+                obj = session.getObject(type, id);
+
+                if (obj == null) {
+                    return null;
+                }
+
+                load_relationships(obj, Collections.newSetFromMap(new IdentityHashMap<>()));
+                obj = copy(obj);
+            }
+
+            cache.put(type, obj, version);
+        }
+
+        return copy(obj);
+    }
+
+    @Override
+    public <T extends PassEntity> void deleteObject(Class<T> type, Long id) throws IOException {
+        try {
+            client.deleteObject(type, id);
+        } finally {
+            invalidate(type, id);
+        }
+    }
+
+    @Override
+    public <T extends PassEntity> void deleteObject(T obj) throws IOException {
+        try {
+            client.deleteObject(obj);
+        } finally {
+            invalidate(obj);
+        }
+    }
+
+    @Override
+    public <T extends PassEntity> PassClientBatchResult createObjects(List<T> objs) {
+        return client.createObjects(objs);
+    }
+
+    @Override
+    public <T extends PassEntity> PassClientBatchResult updateObjects(List<T> objs) {
+        try {
+            return client.updateObjects(objs);
+        } finally {
+            objs.forEach(this::invalidate);
+        }
+    }
+
+    @Override
+    public <T extends PassEntity> PassClientBatchResult deleteObjects(List<T> objs) {
+        try {
+            return client.deleteObjects(objs);
+        } finally {
+            objs.forEach(this::invalidate);
+        }
+    }
+
+    @Override
+    public <T extends PassEntity> PassClientResult<T> selectObjects(PassClientSelector<T> selector)
+            throws IOException {
+        return client.selectObjects(selector);
+    }
+
+    @Override
+    public <T extends PassEntity> long countObjects(PassClientSelector<T> selector) throws IOException {
+        return client.countObjects(selector);
+    }
+
+    @Override
+    public <T extends PassEntity> Stream<T> streamObjects(PassClientSelector<T> selector) throws IOException {
+        return client.streamObjects(selector);
+    }
+
+    @Override
+    public <T extends PassEntity> Stream<T> streamObjects(PassClientSelector<T> selector, int prefetch)
+            throws IOException {
+        return client.streamObjects(selector, prefetch);
+    }
+
+    @Override
+    public <T extends PassEntity> Stream<T> parallelStreamObjects(PassClientSelector<T> selector, int parallelism)
+            throws IOException {
+        return client.parallelStreamObjects(selector, parallelism);
+    }
+
+    @Override
+    public <R> R inTransaction(UnitOfWork<R> work) throws IOException {
+        if (pending != null) {
+            // Nested work joins the transaction
+            return work.apply(this);
+        }
+
+        List<Runnable> invalidations = Collections.synchronizedList(new ArrayList<>());
+
+        try {
+            return client.inTransaction(tx -> work.apply(new CachingPassClient(tx, cache, invalidations)));
+        } finally {
+            // Run after the commit so that a concurrent reader cannot cache an object from before it
+            invalidations.forEach(Runnable::run);
+        }
+    }
+
+    @Override
+    public PassClient readSession() {
+        return new CachingPassClient(client.readSession(), cache, pending);
+    }
+
+    @Override
+    public void close() throws IOException {
+        client.close();
+    }
+
+    private void invalidate(PassEntity obj) {
+        if (pending == null) {
+            cache.invalidate(obj);
+        } else {
+            pending.add(() -> cache.invalidate(obj));
+        }
+    }
+
+    private void invalidate(Class<?> type, Long id) {
+        if (pending == null) {
+            cache.invalidate(type, id);
+        } else {
+            pending.add(() -> cache.invalidate(type, id));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends PassEntity> T copy(T obj) {
+        return (T) copy_graph(obj, new IdentityHashMap<>());
+    }
+
+    // Copy the object and every object reachable from it so the copy shares nothing mutable with the original.
+    // Other field values such as strings, enums, URIs, and dates are immutable and are shared.
+    private static Object copy_graph(Object obj, Map<Object, Object> copies) {
+        Object source = Hibernate.unproxy(obj);
+        Object result = copies.get(source);
+
+        if (result != null) {
+            return result;
+        }
+
+        try {
+            Constructor<?> constructor = source.getClass().getDeclaredConstructor();
+            constructor.setAccessible(true);
+            result = constructor.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot copy " + source.getClass().getSimpleName(), e);
+        }
+
+        copies.put(source, result);
+
+        for (Class<?> c = source.getClass(); c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+
+                try {
+                    field.setAccessible(true);
+                    field.set(result, copy_value(field.get(source), copies));
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Cannot copy " + field, e);
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private static Object copy_value(Object value, Map<Object, Object> copies) {
+        if (value instanceof PassEntity) {
+            return copy_graph(value, copies);
+        }
+
+        if (value instanceof Collection) {
+            // Replace Hibernate collections which cannot be used without a session
+            Collection<Object> result = value instanceof Set ? new LinkedHashSet<>() : new ArrayList<>();
+
+            for (Object o : (Collection<?>) value) {
+                result.add(copy_value(o, copies));
+            }
+
+            return result;
+        }
+
+        return value;
+    }
+
+    // Initialize all relationships reachable from the object so it can be used without a session
+    private static void load_relationships(Object obj, Set<Object> visited) {
+        Object target = Hibernate.unproxy(obj);
+
+        if (!visited.add(target)) {
+            return;
+        }
+
+        for (Class<?> c = target.getClass(); c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+
+                Object value;
+
+                try {
+                    field.setAccessible(true);
+                    value = field.get(target);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Cannot read " + field, e);
+                }
+
+                if (value instanceof Collection) {
+                    Hibernate.initialize(value);
+
+                    for (Object o : (Collection<?>) value) {
+                        if (o instanceof PassEntity) {
+                            load_relationships(o, visited);
+                        }
+                    }
+                } else if (value instanceof PassEntity) {
+                    load_relationships(value, visited);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.object;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import javax.persistence.Convert;
+
+import com.yahoo.elide.core.Path;
+import com.yahoo.elide.core.dictionary.EntityDictionary;
+import com.yahoo.elide.core.filter.Operator;
+import com.yahoo.elide.core.filter.predicates.FilterPredicate;
+import com.yahoo.elide.core.type.ClassType;
+import com.yahoo.elide.core.type.Type;
+import com.yahoo.elide.datastores.jpql.filter.FilterTranslator;
+import org.eclipse.pass.object.model.PassEntity;
+
+/**
+ * Membership filters for collection fields stored as a single comma separated column by a converter,
+ * such as the locatorIds of a User. JPQL MEMBER OF only works on mapped collections, so hasmember and
+ * hasnomember on these fields are translated to a search of the column for the value between commas.
+ */
+class ConvertedCollectionFilters {
+    private static final Set<EntityDictionary> REGISTERED =
+        Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    private ConvertedCollectionFilters() {}
+
+    /**
+     * Register the filters for the converted collection fields of the PASS entities bound in the dictionary.
+     * The translator is global, so this is done once per dictionary.
+     *
+     * @param dict dictionary binding the entities
+     */
+    static void register(EntityDictionary dict) {
+        if (!REGISTERED.add(dict)) {
+            return;
+        }
+
+        for (Type<?> type : dict.getBoundClasses()) {
+            if (!(type instanceof ClassType) || !PassEntity.class.isAssignableFrom(((ClassType<?>) type).getCls())) {
+                continue;
+            }
+
+            for (String field : dict.getAttributes(type)) {
+                Type<?> field_type = dict.getType(type, field);
+
+                if (field_type instanceof ClassType
+                        && Collection.class.isAssignableFrom(((ClassType<?>) field_type).getCls())
+                        && dict.getAttributeOrRelationAnnotation(type, Convert.class, field) != null) {
+                    FilterTranslator.registerJPQLGenerator(Operator.HASMEMBER, type, field,
+                            (predicate, aliases) -> generate(predicate, aliases, true));
+                    FilterTranslator.registerJPQLGenerator(Operator.HASNOMEMBER, type, field,
+                            (predicate, aliases) -> generate(predicate, aliases, false));
+                }
+            }
+        }
+    }
+
+    // LOCATE rather than LIKE so that wildcard characters in a value match literally
+    private static String generate(FilterPredicate predicate, Function<Path, String> aliases, boolean member) {
+        String column = aliases.apply(predicate.getPath());
+        String padded = "CONCAT(',', " + column + ", ',')";
+
+        if (member) {
+            return predicate.getParameters().stream()
+                    .map(p -> "LOCATE(CONCAT(',', " + p.getPlaceholder() + ", ','), " + padded + ") > 0")
+                    .collect(Collectors.joining(" OR ", "(", ")"));
+        }
+
+        return predicate.getParameters().stream()
+                .map(p -> "LOCATE(CONCAT(',', " + p.getPlaceholder() + ", ','), " + padded + ") = 0")
+                .collect(Collectors.joining(" AND ", "(" + column + " IS NULL OR (", "))"));
+    }
+}
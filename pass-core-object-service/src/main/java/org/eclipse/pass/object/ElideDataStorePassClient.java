@@ -16,24 +16,19 @@
 package org.eclipse.pass.object;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
-import javax.ws.rs.core.MultivaluedHashMap;
-import javax.ws.rs.core.MultivaluedMap;
+import java.util.Set;
 
-import com.yahoo.elide.Elide;
-import com.yahoo.elide.ElideSettings;
 import com.yahoo.elide.RefreshableElide;
 import com.yahoo.elide.core.RequestScope;
 import com.yahoo.elide.core.datastore.DataStoreIterable;
 import com.yahoo.elide.core.datastore.DataStoreTransaction;
 import com.yahoo.elide.core.dictionary.EntityDictionary;
-import com.yahoo.elide.core.filter.dialect.ParseException;
-import com.yahoo.elide.core.filter.expression.FilterExpression;
-import com.yahoo.elide.core.pagination.PaginationImpl;
 import com.yahoo.elide.core.request.EntityProjection;
 import com.yahoo.elide.core.request.Pagination;
 import com.yahoo.elide.core.type.ClassType;
+import com.yahoo.elide.core.type.Type;
 import org.eclipse.pass.object.model.PassEntity;
 
 /**
@@ -44,60 +39,23 @@ import org.eclipse.pass.object.model.PassEntity;
  *
  * Objects retrieved using this client may not work after the client has been closed.
  * This is because relationships are loaded lazily.
+ *
+ * By default one read transaction is kept open for the life of the client. A client which reads
+ * per operation instead uses a short lived read transaction for each object or page it retrieves.
+ * Returned objects are then detached and their relationships can only be used if they were included
+ * by the selector. Use {@link #readSession()} to get a client which supports lazy loading.
  */
-public class ElideDataStorePassClient implements PassClient {
-    private final Elide elide;
-    private final ElideSettings settings;
-    private final DataStoreTransaction read_tx;
-
+public class ElideDataStorePassClient extends AbstractElidePassClient {
     public ElideDataStorePassClient(RefreshableElide refreshableElide) {
-        this.elide = refreshableElide.getElide();
-        this.settings = elide.getElideSettings();
-
-        // Keep a read transaction open for interacting with objects which have lazy loading relationships
-        this.read_tx = elide.getDataStore().beginReadTransaction();
-    }
-
-    private RequestScope get_scope(String path, DataStoreTransaction tx) {
-        String version = settings.getDictionary().getApiVersions().iterator().next();
-        RequestScope scope = new RequestScope(settings.getBaseUrl(), path, version, null, tx, null, null, null,
-                UUID.randomUUID(), settings);
-
-        return scope;
+        this(refreshableElide, false);
     }
 
-    private EntityProjection get_projection(RequestScope scope, PassClientSelector<?> selector) throws IOException {
-        Pagination pagination = new PaginationImpl(selector.getType(), selector.getOffset(), selector.getLimit(),
-                settings.getDefaultPageSize(), settings.getDefaultMaxPageSize(), true, false);
-
-        FilterExpression filter = null;
-
-        if (selector.getFilter() != null) {
-            try {
-                MultivaluedMap<String, String> params = new MultivaluedHashMap<>();
-                params.add("filter", selector.getFilter());
-                filter = scope.getFilterDialect().parseGlobalExpression(scope.getPath(), params, scope.getApiVersion());
-            } catch (ParseException e) {
-                throw new IOException("Failed to parse filter of selector: " + selector.getFilter(), e);
-            }
-        }
-
-        return EntityProjection.builder().type(selector.getType()).pagination(pagination).filterExpression(filter)
-                .build();
-    }
-
-    private String get_path(Class<?> type, Long id) {
-        StringBuilder result = new StringBuilder();
-
-        result.append('/');
-        result.append(EntityDictionary.getEntityName(ClassType.of(type)));
-
-        if (id != null) {
-            result.append('/');
-            result.append(id);
-        }
-
-        return result.toString();
+    /**
+     * @param refreshableElide Elide to use
+     * @param read_per_operation whether to use a read transaction per operation instead of one per client
+     */
+    public ElideDataStorePassClient(RefreshableElide refreshableElide, boolean read_per_operation) {
+        super(refreshableElide, null, read_per_operation);
     }
 
     @Override
@@ -126,32 +84,172 @@ public class ElideDataStorePassClient implements PassClient {
         }
     }
 
+    @Override
+    public <T extends PassEntity> void updateFields(T obj, Set<String> fields) throws IOException {
+        try (DataStoreTransaction tx = elide.getDataStore().beginTransaction()) {
+            RequestScope scope = get_scope(get_path(obj.getClass(), obj.getId()), tx);
+
+            tx.preCommit(scope);
+            update_fields(tx, scope, obj, fields);
+            tx.flush(scope);
+            tx.commit(scope);
+        }
+    }
+
+    /**
+     * Copy the named fields onto the persisted object so that only those fields are dirty when flushed.
+     */
+    private void update_fields(DataStoreTransaction tx, RequestScope scope, PassEntity obj, Set<String> fields)
+            throws IOException {
+        EntityDictionary dict = settings.getDictionary();
+        Type<?> type = ClassType.of(obj.getClass());
+        String path = get_path(obj.getClass(), obj.getId());
+
+        for (String field : fields) {
+            if (!dict.isAttribute(type, field) && !dict.isRelation(type, field)) {
+                throw new IOException("Failed to update object: " + path + " has no field " + field);
+            }
+        }
+
+        EntityProjection projection = RequestScopeFactory.getProjection(obj.getClass());
+        Object target = tx.loadObject(projection, obj.getId(), scope);
+
+        if (target == null) {
+            throw new IOException("Failed to update object: " + path + " not found");
+        }
+
+        for (String field : fields) {
+            dict.setValue(target, field, dict.getValue(obj, field, scope));
+        }
+
+        tx.save(target, scope);
+    }
+
+    @Override
+    public <T extends PassEntity> PassClientBatchResult createObjects(List<T> objs) {
+        return run_batch(objs, (tx, scope, obj) -> tx.createObject(obj, scope));
+    }
+
+    @Override
+    public <T extends PassEntity> PassClientBatchResult updateObjects(List<T> objs) {
+        return run_batch(objs, (tx, scope, obj) -> tx.save(obj, scope));
+    }
+
+    @Override
+    public <T extends PassEntity> PassClientBatchResult deleteObjects(List<T> objs) {
+        return run_batch(objs, (tx, scope, obj) -> {
+            EntityProjection projection = RequestScopeFactory.getProjection(obj.getClass());
+            Object target = tx.loadObject(projection, obj.getId(), scope);
+
+            if (target == null) {
+                throw new IOException("Failed to delete object: " + get_path(obj.getClass(), obj.getId())
+                        + " not found");
+            }
+
+            tx.delete(target, scope);
+        });
+    }
+
+    private interface BatchOperation<T> {
+        void apply(DataStoreTransaction tx, RequestScope scope, T obj) throws IOException;
+    }
+
+    /**
+     * Apply the operation to chunks of objects with each chunk written in a single transaction.
+     * If a chunk fails, its objects are retried in separate transactions to find the failures.
+     */
+    private <T extends PassEntity> PassClientBatchResult run_batch(List<T> objs, BatchOperation<T> op) {
+        PassClientBatchResult result = new PassClientBatchResult(objs.size());
+
+        for (int start = 0; start < objs.size(); start += batch_size) {
+            List<T> chunk = objs.subList(start, Math.min(objs.size(), start + batch_size));
+            List<Long> ids = new ArrayList<>();
+            chunk.forEach(o -> ids.add(o.getId()));
+
+            try {
+                run_in_transaction(chunk, op);
+            } catch (IOException | RuntimeException e) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    T obj = chunk.get(i);
+
+                    // Discard any id assigned by the failed transaction
+                    obj.setId(ids.get(i));
+
+                    try {
+                        run_in_transaction(List.of(obj), op);
+                    } catch (IOException | RuntimeException ex) {
+                        obj.setId(ids.get(i));
+                        result.getFailures().put(start + i, ex instanceof IOException ? (IOException) ex
+                                : new IOException("Batch operation failed", ex));
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private <T extends PassEntity> void run_in_transaction(List<T> objs, BatchOperation<T> op)
+            throws IOException {
+        try (DataStoreTransaction tx = elide.getDataStore().beginTransaction()) {
+            String path = get_path(objs.get(0).getClass(), null);
+            RequestScope scope = get_scope(path, tx);
+
+            tx.preCommit(scope);
+
+            for (T obj : objs) {
+                op.apply(tx, scope, obj);
+            }
+
+            tx.flush(scope);
+            tx.commit(scope);
+        }
+    }
+
     @Override
     public <T extends PassEntity> T getObject(Class<T> type, Long id) throws IOException {
         String path = get_path(type, id);
-        RequestScope scope = get_scope(path, read_tx);
-        EntityProjection projection = EntityProjection.builder().type(type).build();
+        EntityProjection projection = RequestScopeFactory.getProjection(type);
 
-        return read_tx.loadObject(projection, id, scope);
+        return read(read_tx, tx -> tx.loadObject(projection, id, get_scope(path, tx)));
     }
 
+    /**
+     * The returned client keeps one read transaction open until it is closed.
+     */
     @Override
-    public <T extends PassEntity> PassClientResult<T> selectObjects(PassClientSelector<T> selector) throws IOException {
+    public PassClient readSession() {
+        ElideDataStorePassClient result = new ElideDataStorePassClient(refreshableElide);
+        result.setBatchSize(batch_size);
+
+        return result;
+    }
+
+    @Override
+    <T extends PassEntity> PassClientResult<T> select_objects(PassClientSelector<T> selector,
+            DataStoreTransaction tx) throws IOException {
         String path = get_path(selector.getType(), null);
-        RequestScope scope = get_scope(path, read_tx);
-        EntityProjection proj = get_projection(scope, selector);
+        RequestScope scope = get_scope(path, tx);
+        EntityProjection proj = PassClientProjections.get(scope, selector);
+
+        DataStoreIterable<T> iterable = tx.loadObjects(proj, scope);
 
-        DataStoreIterable<T> iterable = read_tx.loadObjects(proj, scope);
+        List<T> entities = new ArrayList<>();
+        iterable.forEach(entities::add);
+
+        if (selector.getInclude() != null) {
+            PassClientIncludes.load(scope, selector.getType(), entities, selector.getInclude());
+        }
 
         long total = -1;
         Pagination pagination = proj.getPagination();
-        if (pagination != null) {
-            total = pagination.getPageTotals();
+        if (pagination != null && pagination.returnPageTotals()) {
+            // Totals are not computed for an empty page
+            total = pagination.getPageTotals() == null ? 0 : pagination.getPageTotals();
         }
 
         PassClientResult<T> result = new PassClientResult<>(total);
-        List<T> entities = result.getObjects();
-        iterable.forEach(entities::add);
+        result.getObjects().addAll(entities);
 
         return result;
     }
@@ -161,7 +259,7 @@ public class ElideDataStorePassClient implements PassClient {
         try (DataStoreTransaction tx = elide.getDataStore().beginTransaction()) {
             String path = get_path(type, id);
             RequestScope scope = get_scope(path, tx);
-            EntityProjection projection = EntityProjection.builder().type(type).build();
+            EntityProjection projection = RequestScopeFactory.getProjection(type);
 
             tx.preCommit(scope);
             tx.delete(tx.loadObject(projection, id, scope), scope);
@@ -171,7 +269,93 @@ public class ElideDataStorePassClient implements PassClient {
     }
 
     @Override
-    public void close() throws IOException {
-        read_tx.close();
+    public <R> R inTransaction(UnitOfWork<R> work) throws IOException {
+        try (DataStoreTransaction tx = elide.getDataStore().beginTransaction()) {
+            RequestScope scope = get_scope("/", tx);
+
+            tx.preCommit(scope);
+            R result = work.apply(new TransactionPassClient(tx));
+            tx.flush(scope);
+            tx.commit(scope);
+
+            return result;
+        }
+    }
+
+    /**
+     * Client for a unit of work which performs all operations in one transaction.
+     * The transaction is flushed and committed by inTransaction.
+     */
+    private class TransactionPassClient implements PassClient {
+        private final DataStoreTransaction tx;
+
+        TransactionPassClient(DataStoreTransaction tx) {
+            this.tx = tx;
+        }
+
+        @Override
+        public <T extends PassEntity> void createObject(T obj) throws IOException {
+            tx.createObject(obj, get_scope(get_path(obj.getClass(), null), tx));
+        }
+
+        @Override
+        public <T extends PassEntity> void updateObject(T obj) throws IOException {
+            tx.save(obj, get_scope(get_path(obj.getClass(), obj.getId()), tx));
+        }
+
+        @Override
+        public <T extends PassEntity> void updateFields(T obj, Set<String> fields) throws IOException {
+            update_fields(tx, get_scope(get_path(obj.getClass(), obj.getId()), tx), obj, fields);
+        }
+
+        @Override
+        public <T extends PassEntity> void upsert(T obj, String... fields) throws IOException {
+            PassClientUpserts.write(tx, get_scope(get_path(obj.getClass(), null), tx), this, obj, fields);
+        }
+
+        @Override
+        public <T extends PassEntity> T getObject(Class<T> type, Long id) throws IOException {
+            EntityProjection projection = RequestScopeFactory.getProjection(type);
+
+            return tx.loadObject(projection, id, get_scope(get_path(type, id), tx));
+        }
+
+        @Override
+        public <T extends PassEntity> void deleteObject(Class<T> type, Long id) throws IOException {
+            RequestScope scope = get_scope(get_path(type, id), tx);
+            EntityProjection projection = RequestScopeFactory.getProjection(type);
+            Object target = tx.loadObject(projection, id, scope);
+
+            if (target == null) {
+                throw new IOException("Failed to delete object: " + get_path(type, id) + " not found");
+            }
+
+            tx.delete(target, scope);
+        }
+
+        @Override
+        public <T extends PassEntity> PassClientResult<T> selectObjects(PassClientSelector<T> selector)
+                throws IOException {
+            return select_objects(selector, tx);
+        }
+
+        @Override
+        public <R> R inTransaction(UnitOfWork<R> work) throws IOException {
+            // Nested work joins the transaction
+            return work.apply(this);
+        }
+
+        /**
+         * Reads already share the transaction.
+         */
+        @Override
+        public PassClient readSession() {
+            return this;
+        }
+
+        @Override
+        public void close() {
+            // The transaction is closed by inTransaction
+        }
     }
-}
\ No newline at end of file
+}
@@ -16,28 +16,33 @@
 package org.eclipse.pass.object;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import javax.ws.rs.core.MultivaluedHashMap;
 import javax.ws.rs.core.MultivaluedMap;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.yahoo.elide.Elide;
 import com.yahoo.elide.ElideResponse;
-import com.yahoo.elide.ElideSettings;
 import com.yahoo.elide.RefreshableElide;
+import com.yahoo.elide.core.PersistentResource;
 import com.yahoo.elide.core.RequestScope;
 import com.yahoo.elide.core.datastore.DataStoreTransaction;
-import com.yahoo.elide.core.dictionary.EntityDictionary;
+import com.yahoo.elide.core.exceptions.HttpStatusException;
+import com.yahoo.elide.core.exceptions.InvalidObjectIdentifierException;
+import com.yahoo.elide.core.request.EntityProjection;
+import com.yahoo.elide.core.request.Pagination;
 import com.yahoo.elide.core.security.User;
 import com.yahoo.elide.core.type.ClassType;
 import com.yahoo.elide.jsonapi.models.Data;
 import com.yahoo.elide.jsonapi.models.JsonApiDocument;
-import com.yahoo.elide.jsonapi.models.Relationship;
 import com.yahoo.elide.jsonapi.models.Resource;
-import com.yahoo.elide.jsonapi.models.ResourceIdentifier;
 import org.eclipse.pass.object.model.PassEntity;
 
 /**
@@ -46,101 +51,122 @@ import org.eclipse.pass.object.model.PassEntity;
  *
  * Objects retrieved using this client may not work after the client has been closed.
  * This is because relationships are loaded lazily.
+ *
+ * By default one read transaction is kept open for the life of the client. A client which reads
+ * per operation instead uses a short lived read transaction for each object or page it retrieves.
+ * Returned objects are then detached and their relationships can only be used if they were included
+ * by the selector. Use {@link #readSession()} to get a client which supports lazy loading.
+ *
+ * A direct client does not render requests and responses as JSON:API text. Instead it works with
+ * Elide resources in memory while still running permission checks and lifecycle hooks.
  */
-public class ElidePassClient implements PassClient {
-    private final Elide elide;
-    private final ElideSettings settings;
+public class ElidePassClient extends AbstractElidePassClient {
     private final User user;
     private final String api_version;
-    private final DataStoreTransaction read_tx;
+    private final PassEntityAccessors accessors;
+    private boolean direct;
 
     public ElidePassClient(RefreshableElide refreshableElide, User user) {
-        this.elide = refreshableElide.getElide();
-        this.settings = elide.getElideSettings();
+        this(refreshableElide, user, false);
+    }
+
+    /**
+     * @param refreshableElide Elide to use
+     * @param user User making requests
+     * @param read_per_operation whether to use a read transaction per operation instead of one per client
+     */
+    public ElidePassClient(RefreshableElide refreshableElide, User user, boolean read_per_operation) {
+        super(refreshableElide, user, read_per_operation);
         this.user = user;
-        this.api_version = settings.getDictionary().getApiVersions().iterator().next();
-        this.read_tx = elide.getDataStore().beginReadTransaction();
+        this.accessors = PassEntityAccessors.of(settings.getDictionary());
+        this.api_version = scopes.getApiVersion();
     }
 
-    private RequestScope get_scope(String path, DataStoreTransaction tx) {
-        RequestScope scope = new RequestScope(settings.getBaseUrl(), path, api_version, null, tx, user, null, null,
-                UUID.randomUUID(), settings);
+    /**
+     * Set whether single object operations work directly with Elide resources in memory instead of going
+     * through JSON:API text. Selections always work directly. Batch operations always send JSON Patch requests.
+     *
+     * @param direct whether to work directly with Elide resources
+     */
+    public void setDirect(boolean direct) {
+        this.direct = direct;
+    }
 
-        return scope;
+    private interface WriteOperation<R> {
+        R apply(RequestScope scope);
     }
 
-    private String get_path(Class<?> type, Long id) {
-        StringBuilder result = new StringBuilder();
+    private <R> R write(String path, String action, WriteOperation<R> op) throws IOException {
+        try (DataStoreTransaction tx = elide.getDataStore().beginTransaction()) {
+            RequestScope scope = get_scope(path, tx);
+            R result = op.apply(scope);
 
-        result.append('/');
-        result.append(EntityDictionary.getEntityName(ClassType.of(type)));
+            commit(tx, scope);
 
-        if (id != null) {
-            result.append('/');
-            result.append(id);
+            return result;
+        } catch (HttpStatusException e) {
+            throw new IOException("Failed to " + action + " object: " + e.getStatus() + " " + e.getMessage(), e);
         }
-
-        return result.toString();
     }
 
-    private JsonApiDocument to_json_api_doc(PassEntity obj) {
-        EntityDictionary dict = settings.getDictionary();
-
-        String typeName = EntityDictionary.getEntityName(ClassType.of(obj.getClass()));
-
-        Resource resource = new Resource(typeName, obj.getId() == null ? "-1" : obj.getId().toString());
+    // Commit the same way Elide does for a request so that permissions and hooks are handled
+    private static void commit(DataStoreTransaction tx, RequestScope scope) {
+        tx.preCommit(scope);
+        scope.runQueuedPreSecurityTriggers();
+        scope.getPermissionExecutor().executeCommitChecks();
+        scope.runQueuedPreFlushTriggers();
+        scope.saveOrCreateObjects();
+        tx.flush(scope);
+        scope.runQueuedPreCommitTriggers();
+        tx.commit(scope);
+        scope.runQueuedPostCommitTriggers();
+    }
 
-        Map<String, Relationship> relationships = new HashMap<>();
+    private PersistentResource<?> load_resource(Class<?> type, Long id, RequestScope scope) {
+        return PersistentResource.loadRecord(RequestScopeFactory.getProjection(type), id.toString(), scope);
+    }
 
-        for (String name : dict.getRelationships(obj)) {
-            Object value = dict.getValue(obj, name, null);
-            Data<Resource> data;
+    private PersistentResource<?> create_resource(PassEntity obj, Resource resource, RequestScope scope) {
+        PersistentResource<?> result = PersistentResource.createObject(null, null, ClassType.of(obj.getClass()),
+                scope, Optional.empty());
+        update_resource(result, resource, scope, true);
 
-            if (value == null) {
-                data = new Data<>((Resource) null);
-            } else if (value instanceof List) {
-                List<Resource> targets = new ArrayList<>();
+        return result;
+    }
 
-                for (Object o : List.class.cast(value)) {
-                    PassEntity entity = PassEntity.class.cast(o);
-                    String target_type = EntityDictionary.getEntityName(ClassType.of(entity.getClass()));
-                    String target_id = entity.getId().toString();
-                    ResourceIdentifier target = new ResourceIdentifier(target_type, target_id);
+    // Apply the fields of the resource as Elide does for a JSON:API request
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static void update_resource(PersistentResource<?> target, Resource resource, RequestScope scope,
+            boolean created) {
+        resource.getAttributes().forEach(target::updateAttribute);
 
-                    targets.add(target.castToResource());
-                }
+        resource.getRelationships().forEach((name, rel) -> {
+            Set<PersistentResource> targets = rel.toPersistentResources(scope);
 
-                data = new Data<>(targets);
-            } else if (value instanceof PassEntity) {
-                PassEntity entity = PassEntity.class.cast(value);
-                String target_type = EntityDictionary.getEntityName(ClassType.of(entity.getClass()));
-                String target_id = entity.getId().toString();
-                ResourceIdentifier target = new ResourceIdentifier(target_type, target_id);
-                data = new Data<>(target.castToResource());
-            } else {
-                throw new RuntimeException("Unknown relationship target: " + value);
+            // A new object has no relationships to clear
+            if (!created || (targets != null && !targets.isEmpty())) {
+                target.updateRelation(name, targets);
             }
+        });
+    }
 
-            relationships.put(name, new Relationship(null, data));
-        }
-
-        resource.setRelationships(relationships);
-
-        Map<String, Object> attributes = new HashMap<>();
-
-        for (String name : dict.getAttributes(obj)) {
-            attributes.put(name, dict.getValue(obj, name, null));
-        }
-
-        resource.setAttributes(attributes);
-
-        return new JsonApiDocument(new Data<>(resource));
+    private JsonApiDocument to_json_api_doc(PassEntity obj) {
+        return new JsonApiDocument(new Data<>(accessors.toResource(obj, null)));
     }
 
     @Override
     public <T extends PassEntity> void createObject(T obj) throws IOException {
         String path = get_path(obj.getClass(), null);
 
+        if (direct) {
+            Resource resource = accessors.toResource(obj, null);
+
+            PersistentResource<?> created = write(path, "create", scope -> create_resource(obj, resource, scope));
+
+            obj.setId(PassEntity.class.cast(created.getObject()).getId());
+            return;
+        }
+
         String json = elide.getMapper().writeJsonApiDocument(to_json_api_doc(obj));
         ElideResponse response = elide.post(settings.getBaseUrl(), path, json, user, api_version);
 
@@ -154,9 +180,36 @@ public class ElidePassClient implements PassClient {
 
     @Override
     public <T extends PassEntity> void updateObject(T obj) throws IOException {
+        patch(obj, accessors.toResource(obj, null));
+    }
+
+    @Override
+    public <T extends PassEntity> void updateFields(T obj, Set<String> fields) throws IOException {
+        for (String field : fields) {
+            if (!accessors.hasField(obj.getClass(), field)) {
+                throw new IOException("Failed to update object: " + get_path(obj.getClass(), obj.getId())
+                        + " has no field " + field);
+            }
+        }
+
+        patch(obj, accessors.toResource(obj, fields));
+    }
+
+    private void patch(PassEntity obj, Resource resource) throws IOException {
         String path = get_path(obj.getClass(), obj.getId());
 
-        String json = elide.getMapper().writeJsonApiDocument(to_json_api_doc(obj));
+        if (direct) {
+            write(path, "update", scope -> {
+                PersistentResource<?> target = load_resource(obj.getClass(), obj.getId(), scope);
+                update_resource(target, resource, scope, false);
+
+                return target;
+            });
+
+            return;
+        }
+
+        String json = elide.getMapper().writeJsonApiDocument(new JsonApiDocument(new Data<>(resource)));
         ElideResponse response = elide.patch(settings.getBaseUrl(), Elide.JSONAPI_CONTENT_TYPE,
                 Elide.JSONAPI_CONTENT_TYPE, path, json, user, api_version);
 
@@ -167,10 +220,115 @@ public class ElidePassClient implements PassClient {
         }
     }
 
+    @Override
+    public <T extends PassEntity> PassClientBatchResult createObjects(List<T> objs) {
+        return run_batch(objs, "add", this::createObject);
+    }
+
+    @Override
+    public <T extends PassEntity> PassClientBatchResult updateObjects(List<T> objs) {
+        return run_batch(objs, "replace", this::updateObject);
+    }
+
+    @Override
+    public <T extends PassEntity> PassClientBatchResult deleteObjects(List<T> objs) {
+        return run_batch(objs, "remove", this::deleteObject);
+    }
+
+    private interface ObjectOperation<T> {
+        void apply(T obj) throws IOException;
+    }
+
+    /**
+     * Apply the JSON Patch operation to chunks of objects with each chunk sent as a single request
+     * which Elide runs in one transaction. If a chunk fails, its objects are retried separately
+     * to find the failures.
+     */
+    private <T extends PassEntity> PassClientBatchResult run_batch(List<T> objs, String op,
+            ObjectOperation<T> single_op) {
+        PassClientBatchResult result = new PassClientBatchResult(objs.size());
+
+        for (int start = 0; start < objs.size(); start += batch_size) {
+            List<T> chunk = objs.subList(start, Math.min(objs.size(), start + batch_size));
+
+            try {
+                json_patch(chunk, op);
+            } catch (IOException | RuntimeException e) {
+                for (int i = 0; i < chunk.size(); i++) {
+                    try {
+                        single_op.apply(chunk.get(i));
+                    } catch (IOException | RuntimeException ex) {
+                        result.getFailures().put(start + i, ex instanceof IOException ? (IOException) ex
+                                : new IOException("Batch operation failed", ex));
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private <T extends PassEntity> void json_patch(List<T> objs, String op) throws IOException {
+        ObjectMapper mapper = elide.getMapper().getObjectMapper();
+        ArrayNode patch = mapper.createArrayNode();
+
+        for (T obj : objs) {
+            ObjectNode action = patch.addObject();
+            Resource value;
+
+            action.put("op", op);
+
+            if (op.equals("add")) {
+                // New objects need distinct temporary ids within the request
+                value = accessors.toResource(obj, null);
+                value.setId(UUID.randomUUID().toString());
+                action.put("path", get_path(obj.getClass(), null));
+            } else if (op.equals("replace")) {
+                value = accessors.toResource(obj, null);
+                action.put("path", get_path(obj.getClass(), obj.getId()));
+            } else {
+                // A remove of an object path deletes the object
+                action.put("path", get_path(obj.getClass(), obj.getId()));
+                continue;
+            }
+
+            action.set("value", mapper.valueToTree(value));
+        }
+
+        String content_type = Elide.JSONAPI_CONTENT_TYPE_WITH_JSON_PATCH_EXTENSION;
+        ElideResponse response = elide.patch(settings.getBaseUrl(), content_type, content_type, "/",
+                mapper.writeValueAsString(patch), user, api_version);
+
+        if (response.getResponseCode() != 200) {
+            throw new IOException("Failed to patch objects: " + response.getResponseCode() + " "
+                    + response.getBody());
+        }
+
+        if (op.equals("add")) {
+            JsonNode results = mapper.readTree(response.getBody());
+
+            for (int i = 0; i < objs.size(); i++) {
+                settings.getDictionary().setId(objs.get(i), results.get(i).get("data").get("id").asText());
+            }
+        }
+    }
+
     @Override
     public <T extends PassEntity> T getObject(Class<T> type, Long id) throws IOException {
         String path = get_path(type, id);
 
+        if (direct) {
+            return read(read_tx, tx -> {
+                try {
+                    return type.cast(load_resource(type, id, get_scope(path, tx)).getObject());
+                } catch (InvalidObjectIdentifierException e) {
+                    return null;
+                } catch (HttpStatusException e) {
+                    throw new IOException("Failed to get object: " + e.getStatus() + " " + e.getMessage(), e);
+                }
+            });
+        }
+
         MultivaluedMap<String, String> params = new MultivaluedHashMap<>();
         ElideResponse response = elide.get(settings.getBaseUrl(), path, params, user, api_version);
 
@@ -184,72 +342,199 @@ public class ElidePassClient implements PassClient {
 
         JsonApiDocument doc = elide.getMapper().readJsonApiDocument(response.getBody());
 
-        return type.cast(doc.getData().getSingleValue().toPersistentResource(get_scope(path, read_tx)).getObject());
+        Resource resource = doc.getData().getSingleValue();
+
+        return read(read_tx, tx -> type.cast(resource.toPersistentResource(get_scope(path, tx)).getObject()));
     }
 
     @Override
     public <T extends PassEntity> void deleteObject(Class<T> type, Long id) throws IOException {
         String path = get_path(type, id);
 
-        ElideResponse response = elide.delete(settings.getBaseUrl(), path, api_version, user, api_version);
+        if (direct) {
+            write(path, "delete", scope -> {
+                load_resource(type, id, scope).deleteResource();
+
+                return null;
+            });
+
+            return;
+        }
+
+        ElideResponse response = elide.delete(settings.getBaseUrl(), path, null, user, api_version);
 
         if (response.getResponseCode() != 204) {
             throw new IOException("Failed to delete object: " + response.getResponseCode() + " " + response.getBody());
         }
     }
 
+    /**
+     * The returned client keeps one read transaction open until it is closed.
+     */
+    @Override
+    public PassClient readSession() {
+        ElidePassClient result = new ElidePassClient(refreshableElide, user);
+        result.setBatchSize(batch_size);
+        result.setDirect(direct);
+
+        return result;
+    }
+
+    /**
+     * The work always uses Elide resources directly because a JSON:API request cannot span a transaction.
+     * Permission checks and lifecycle hooks run when the transaction is committed, as for a JSON Patch request.
+     */
+    @Override
+    public <R> R inTransaction(UnitOfWork<R> work) throws IOException {
+        try (DataStoreTransaction tx = elide.getDataStore().beginTransaction()) {
+            RequestScope scope = get_scope("/", tx);
+            R result = work.apply(new TransactionPassClient(tx, scope));
+
+            commit(tx, scope);
+
+            return result;
+        } catch (HttpStatusException e) {
+            throw new IOException("Failed to commit transaction: " + e.getStatus() + " " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Selections always load Elide resources directly, with read permission checks, whether or not the client
+     * is direct. A JSON:API response would only supply the ids of a page, which would then have to be loaded
+     * again along with the relationships to include.
+     */
     @Override
-    public <T extends PassEntity> PassClientResult<T> selectObjects(PassClientSelector<T> selector) throws IOException {
+    <T extends PassEntity> PassClientResult<T> select_objects(PassClientSelector<T> selector,
+            DataStoreTransaction tx) throws IOException {
         String path = get_path(selector.getType(), null);
+        RequestScope scope = get_scope(path, tx);
+        EntityProjection projection = PassClientProjections.get(scope, selector);
+        List<T> objects;
+
+        try {
+            objects = PersistentResource.loadRecords(projection, Collections.emptyList(), scope)
+                    .map(r -> selector.getType().cast(r.getObject())).toList().blockingGet();
+        } catch (HttpStatusException e) {
+            throw new IOException("Failed to select objects: " + e.getStatus() + " " + e.getMessage(), e);
+        }
 
-        MultivaluedMap<String, String> params = new MultivaluedHashMap<>();
+        long total = -1;
+        Pagination pagination = projection.getPagination();
+
+        if (pagination.returnPageTotals()) {
+            // Totals are not computed for an empty page
+            total = pagination.getPageTotals() == null ? 0 : pagination.getPageTotals();
+        }
+
+        PassClientResult<T> result = new PassClientResult<>(total);
+        result.getObjects().addAll(objects);
 
-        if (selector.getFilter() != null) {
-            params.add("filter", selector.getFilter());
+        if (selector.getInclude() != null) {
+            PassClientIncludes.load(scope, selector.getType(), result.getObjects(), selector.getInclude());
         }
 
-        if (selector.getSorting() != null) {
-            params.add("sort", selector.getSorting());
+        return result;
+    }
+
+    /**
+     * Client for a unit of work which performs all operations with Elide resources in one request scope.
+     * The transaction is committed by inTransaction.
+     */
+    private class TransactionPassClient implements PassClient {
+        private final DataStoreTransaction tx;
+        private final RequestScope scope;
+
+        TransactionPassClient(DataStoreTransaction tx, RequestScope scope) {
+            this.tx = tx;
+            this.scope = scope;
         }
 
-        params.add("page[offset]", "" + selector.getOffset());
-        params.add("page[limit]", "" + selector.getLimit());
-        params.add("page[totals]", null);
+        @Override
+        public <T extends PassEntity> void createObject(T obj) throws IOException {
+            try {
+                PassEntity created = PassEntity.class.cast(
+                        create_resource(obj, accessors.toResource(obj, null), scope).getObject());
 
-        ElideResponse response = elide.get(settings.getBaseUrl(), path, params, user, api_version);
+                // The id is assigned when the object is persisted
+                obj.setId(created.getId());
+            } catch (HttpStatusException e) {
+                throw new IOException("Failed to create object: " + e.getStatus() + " " + e.getMessage(), e);
+            }
+        }
 
-        if (response.getResponseCode() == 404) {
-            return null;
+        @Override
+        public <T extends PassEntity> void updateObject(T obj) throws IOException {
+            patch(obj, accessors.toResource(obj, null));
         }
 
-        if (response.getResponseCode() != 200) {
-            throw new IOException("Failed to get object: " + response.getResponseCode() + " " + response.getBody());
+        @Override
+        public <T extends PassEntity> void updateFields(T obj, Set<String> fields) throws IOException {
+            for (String field : fields) {
+                if (!accessors.hasField(obj.getClass(), field)) {
+                    throw new IOException("Failed to update object: " + get_path(obj.getClass(), obj.getId())
+                            + " has no field " + field);
+                }
+            }
+
+            patch(obj, accessors.toResource(obj, fields));
         }
 
-        JsonApiDocument doc = elide.getMapper().readJsonApiDocument(response.getBody());
+        @Override
+        public <T extends PassEntity> void upsert(T obj, String... fields) throws IOException {
+            PassClientUpserts.write(tx, scope, this, obj, fields);
+        }
 
-        Object totalval = doc.getMeta().getValue("page", Map.class).get("totalRecords");
-        long total = -1;
+        private void patch(PassEntity obj, Resource resource) throws IOException {
+            try {
+                update_resource(load_resource(obj.getClass(), obj.getId(), scope), resource, scope, false);
+            } catch (HttpStatusException e) {
+                throw new IOException("Failed to update object: " + e.getStatus() + " " + e.getMessage(), e);
+            }
+        }
 
-        if (totalval != null) {
-            total = Long.parseLong(totalval.toString());
+        @Override
+        public <T extends PassEntity> T getObject(Class<T> type, Long id) throws IOException {
+            try {
+                return type.cast(load_resource(type, id, scope).getObject());
+            } catch (InvalidObjectIdentifierException e) {
+                return null;
+            } catch (HttpStatusException e) {
+                throw new IOException("Failed to get object: " + e.getStatus() + " " + e.getMessage(), e);
+            }
         }
 
-        PassClientResult<T> result = new PassClientResult<>(total);
+        @Override
+        public <T extends PassEntity> void deleteObject(Class<T> type, Long id) throws IOException {
+            try {
+                load_resource(type, id, scope).deleteResource();
+            } catch (HttpStatusException e) {
+                throw new IOException("Failed to delete object: " + e.getStatus() + " " + e.getMessage(), e);
+            }
+        }
 
-        RequestScope scope = get_scope(path, read_tx);
+        @Override
+        public <T extends PassEntity> PassClientResult<T> selectObjects(PassClientSelector<T> selector)
+                throws IOException {
+            return select_objects(selector, tx);
+        }
 
-        doc.getData().get().forEach(r -> {
-            @SuppressWarnings("unchecked")
-            T o = (T) r.toPersistentResource(scope).getObject();
-            result.getObjects().add(o);
-        });
+        @Override
+        public <R> R inTransaction(UnitOfWork<R> work) throws IOException {
+            // Nested work joins the transaction
+            return work.apply(this);
+        }
 
-        return result;
-    }
+        /**
+         * Reads already share the transaction.
+         */
+        @Override
+        public PassClient readSession() {
+            return this;
+        }
 
-    @Override
-    public void close() throws IOException {
-        read_tx.close();
+        @Override
+        public void close() {
+            // The transaction is closed by inTransaction
+        }
     }
-}
\ No newline at end of file
+}
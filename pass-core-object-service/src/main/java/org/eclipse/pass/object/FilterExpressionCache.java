@@ -0,0 +1,320 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.object;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.yahoo.elide.core.dictionary.EntityDictionary;
+import com.yahoo.elide.core.filter.expression.AndFilterExpression;
+import com.yahoo.elide.core.filter.expression.FilterExpression;
+import com.yahoo.elide.core.filter.expression.NotFilterExpression;
+import com.yahoo.elide.core.filter.expression.OrFilterExpression;
+import com.yahoo.elide.core.filter.predicates.FilterPredicate;
+import com.yahoo.elide.core.utils.coerce.CoerceUtil;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Bounded LRU cache of parsed RSQL filters.
+ *
+ * Filters which differ only in the values of their quoted literals have the same shape. The first filter
+ * parsed for a shape becomes a template for that shape. Later filters with the same shape are not parsed.
+ * Their literals are instead bound to the predicates of the template in order. A template is only used if
+ * binding its own literals reproduces it. Otherwise, for example if wildcards or unquoted values are involved,
+ * filters of that shape are cached by their exact text.
+ *
+ * Parsed filters refer to the entities of a dictionary, so each dictionary has its own cache. When bound to a
+ * registry, the counter pass.client.filter.cache counts lookups tagged by a result of hit or miss and the gauge
+ * pass.client.filter.cache.size reports the number of cached templates and filters.
+ */
+public class FilterExpressionCache implements MeterBinder {
+    /**
+     * Default maximum number of cached templates and filters.
+     */
+    public static final int DEFAULT_CAPACITY = 1000;
+
+    static final String LOOKUPS = "pass.client.filter.cache";
+    static final String SIZE = "pass.client.filter.cache.size";
+
+    private static final Map<EntityDictionary, FilterExpressionCache> CACHES =
+        Collections.synchronizedMap(new WeakHashMap<>());
+
+    private final Map<String, Template> cache;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+
+    /**
+     * Parses an RSQL filter.
+     */
+    public interface Parser {
+        /**
+         * @param filter RSQL filter
+         * @return parsed filter
+         * @throws IOException if the filter cannot be parsed
+         */
+        FilterExpression parse(String filter) throws IOException;
+    }
+
+    private static class Template {
+        final FilterExpression expression;
+        final boolean bindable;
+
+        Template(FilterExpression expression, boolean bindable) {
+            this.expression = expression;
+            this.bindable = bindable;
+        }
+    }
+
+    /**
+     * @param capacity maximum number of cached templates and filters
+     */
+    public FilterExpressionCache(int capacity) {
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Template> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+    }
+
+    /**
+     * @param dict dictionary binding the entities filters refer to
+     * @return cache of the dictionary with the default capacity
+     */
+    public static FilterExpressionCache of(EntityDictionary dict) {
+        return CACHES.computeIfAbsent(dict, d -> new FilterExpressionCache(DEFAULT_CAPACITY));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(LOOKUPS, hits, AtomicLong::get).tag("result", "hit")
+                .description("Filters returned without being parsed").register(registry);
+        FunctionCounter.builder(LOOKUPS, misses, AtomicLong::get).tag("result", "miss")
+                .description("Filters which had to be parsed").register(registry);
+        Gauge.builder(SIZE, this, FilterExpressionCache::getSize)
+                .description("Cached templates and filters").register(registry);
+    }
+
+    /**
+     * Return the parsed filter, using the parser only if the filter is not cached.
+     *
+     * @param path path of the collection the filter applies to
+     * @param filter RSQL filter
+     * @param parser parses the filter if needed
+     * @return parsed filter
+     * @throws IOException if the filter cannot be parsed
+     */
+    public FilterExpression get(String path, String filter, Parser parser) throws IOException {
+        List<String> literals = new ArrayList<>();
+        String shape = get_shape(filter, literals);
+        String shape_key = shape == null ? null : "shape " + path + " " + shape;
+        String exact_key = "exact " + path + " " + filter;
+
+        Template template = shape_key == null ? null : lookup(shape_key);
+
+        if (template != null && template.bindable) {
+            FilterExpression result = bind(template.expression, literals);
+
+            if (result != null) {
+                hits.incrementAndGet();
+                return result;
+            }
+        }
+
+        Template exact = lookup(exact_key);
+
+        if (exact != null) {
+            hits.incrementAndGet();
+            return exact.expression;
+        }
+
+        misses.incrementAndGet();
+        FilterExpression result = parser.parse(filter);
+
+        if (shape_key != null && template == null) {
+            FilterExpression bound = bind(result, literals);
+            boolean bindable = bound != null && get_values(bound).equals(get_values(result));
+
+            store(shape_key, new Template(result, bindable));
+
+            if (bindable) {
+                return result;
+            }
+        }
+
+        store(exact_key, new Template(result, false));
+
+        return result;
+    }
+
+    /**
+     * @return Number of filters returned without being parsed
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return Number of filters which had to be parsed
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return Number of cached templates and filters
+     */
+    public synchronized int getSize() {
+        return cache.size();
+    }
+
+    /**
+     * Remove all cached templates and filters.
+     */
+    public synchronized void clear() {
+        cache.clear();
+    }
+
+    private synchronized Template lookup(String key) {
+        return cache.get(key);
+    }
+
+    private synchronized void store(String key, Template template) {
+        cache.put(key, template);
+    }
+
+    /**
+     * Replace quoted literals in the filter with a placeholder and collect their unescaped values.
+     * Wildcards at the start or end of a literal are kept in the shape because they change the operator.
+     *
+     * @return shape of filter or null if the literals cannot be found
+     */
+    static String get_shape(String filter, List<String> literals) {
+        StringBuilder shape = new StringBuilder();
+
+        for (int i = 0; i < filter.length(); i++) {
+            char c = filter.charAt(i);
+
+            if (c != '\'' && c != '"') {
+                shape.append(c);
+                continue;
+            }
+
+            StringBuilder literal = new StringBuilder();
+            boolean closed = false;
+
+            for (i++; i < filter.length(); i++) {
+                char lc = filter.charAt(i);
+
+                if (lc == '\\' && i + 1 < filter.length()) {
+                    literal.append(filter.charAt(++i));
+                } else if (lc == c) {
+                    closed = true;
+                    break;
+                } else {
+                    literal.append(lc);
+                }
+            }
+
+            if (!closed) {
+                return null;
+            }
+
+            String value = literal.toString();
+
+            shape.append(c);
+            shape.append(value.startsWith("*") ? "*?" : "?");
+            shape.append(value.length() > 1 && value.endsWith("*") ? "*" : "");
+            shape.append(c);
+
+            literals.add(value);
+        }
+
+        return shape.toString();
+    }
+
+    /**
+     * Bind the literals in order to the values of the predicates of the template.
+     *
+     * @return bound filter or null if the literals do not fit the template
+     */
+    private static FilterExpression bind(FilterExpression template, List<String> literals) {
+        int[] next = {0};
+
+        try {
+            FilterExpression result = bind(template, literals, next);
+
+            return next[0] == literals.size() ? result : null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static FilterExpression bind(FilterExpression template, List<String> literals, int[] next) {
+        if (template instanceof AndFilterExpression) {
+            AndFilterExpression and = (AndFilterExpression) template;
+            return new AndFilterExpression(bind(and.getLeft(), literals, next), bind(and.getRight(), literals, next));
+        } else if (template instanceof OrFilterExpression) {
+            OrFilterExpression or = (OrFilterExpression) template;
+            return new OrFilterExpression(bind(or.getLeft(), literals, next), bind(or.getRight(), literals, next));
+        } else if (template instanceof NotFilterExpression) {
+            NotFilterExpression not = (NotFilterExpression) template;
+            return new NotFilterExpression(bind(not.getNegated(), literals, next));
+        } else if (template instanceof FilterPredicate) {
+            FilterPredicate pred = (FilterPredicate) template;
+            List<Object> values = new ArrayList<>();
+
+            for (Object value : pred.getValues()) {
+                values.add(CoerceUtil.coerce(literals.get(next[0]++), value.getClass()));
+            }
+
+            return new FilterPredicate(pred.getPath(), pred.getOperator(), values);
+        }
+
+        throw new IllegalArgumentException("Unsupported filter expression: " + template);
+    }
+
+    private static List<Object> get_values(FilterExpression expr) {
+        List<Object> result = new ArrayList<>();
+        collect_values(expr, result);
+        return result;
+    }
+
+    private static void collect_values(FilterExpression expr, List<Object> result) {
+        if (expr instanceof AndFilterExpression) {
+            collect_values(((AndFilterExpression) expr).getLeft(), result);
+            collect_values(((AndFilterExpression) expr).getRight(), result);
+        } else if (expr instanceof OrFilterExpression) {
+            collect_values(((OrFilterExpression) expr).getLeft(), result);
+            collect_values(((OrFilterExpression) expr).getRight(), result);
+        } else if (expr instanceof NotFilterExpression) {
+            collect_values(((NotFilterExpression) expr).getNegated(), result);
+        } else if (expr instanceof FilterPredicate) {
+            result.addAll(((FilterPredicate) expr).getValues());
+        }
+    }
+}
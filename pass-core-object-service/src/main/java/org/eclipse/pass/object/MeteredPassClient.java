@@ -0,0 +1,302 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.object;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.eclipse.pass.object.model.PassEntity;
+import org.hibernate.Hibernate;
+
+/**
+ * PassClient which records metrics of the operations of another PassClient.
+ *
+ * The timer pass.client.requests records the latency of each operation tagged by entity type, operation, and
+ * outcome. The outcome is success, error, or not_found for a get of a missing object. The counter
+ * pass.client.objects counts the objects of batch operations by outcome. The distribution pass.client.rows records
+ * the number of objects returned by selects, gets of several objects, and streams. The rows of a stream are
+ * recorded when it is closed. The timer and distribution publish percentile histograms.
+ */
+public class MeteredPassClient implements PassClient {
+    static final String REQUESTS = "pass.client.requests";
+    static final String OBJECTS = "pass.client.objects";
+    static final String ROWS = "pass.client.rows";
+
+    private static final String SUCCESS = "success";
+    private static final String NOT_FOUND = "not_found";
+    private static final String ERROR = "error";
+    private static final String NO_TYPE = "none";
+
+    private final PassClient client;
+    private final MeterRegistry registry;
+
+    /**
+     * @param client client to delegate to
+     * @param registry registry of the metrics
+     */
+    public MeteredPassClient(PassClient client, MeterRegistry registry) {
+        this.client = client;
+        this.registry = registry;
+    }
+
+    /**
+     * Record metrics in the global registry, which includes the registries of a Spring Boot application.
+     *
+     * @param client client to delegate to
+     */
+    public MeteredPassClient(PassClient client) {
+        this(client, Metrics.globalRegistry);
+    }
+
+    private interface Operation<R> {
+        R run() throws IOException;
+    }
+
+    private interface VoidOperation {
+        void run() throws IOException;
+    }
+
+    @Override
+    public <T extends PassEntity> void createObject(T obj) throws IOException {
+        timed_void(type_of(obj), "create", () -> client.createObject(obj));
+    }
+
+    @Override
+    public <T extends PassEntity> void updateObject(T obj) throws IOException {
+        timed_void(type_of(obj), "update", () -> client.updateObject(obj));
+    }
+
+    @Override
+    public <T extends PassEntity> void updateFields(T obj, Set<String> fields) throws IOException {
+        timed_void(type_of(obj), "updateFields", () -> client.updateFields(obj, fields));
+    }
+
+    @Override
+    public <T extends PassEntity> void upsert(T obj, String... fields) throws IOException {
+        timed_void(type_of(obj), "upsert", () -> client.upsert(obj, fields));
+    }
+
+    @Override
+    public <T extends PassEntity> T getObject(Class<T> type, Long id) throws IOException {
+        long start = System.nanoTime();
+        String outcome = ERROR;
+
+        try {
+            T result = client.getObject(type, id);
+            outcome = result == null ? NOT_FOUND : SUCCESS;
+            return result;
+        } finally {
+            record(type_of(type), "get", outcome, start);
+        }
+    }
+
+    @Override
+    public <T extends PassEntity> List<T> getObjects(Class<T> type, Collection<Long> ids) throws IOException {
+        List<T> result = timed(type_of(type), "getObjects", () -> client.getObjects(type, ids));
+        record_rows(type_of(type), "getObjects", result.size());
+        return result;
+    }
+
+    @Override
+    public <T extends PassEntity> void deleteObject(Class<T> type, Long id) throws IOException {
+        timed_void(type_of(type), "delete", () -> client.deleteObject(type, id));
+    }
+
+    @Override
+    public <T extends PassEntity> void deleteObject(T obj) throws IOException {
+        timed_void(type_of(obj), "delete", () -> client.deleteObject(obj));
+    }
+
+    @Override
+    public <T extends PassEntity> PassClientBatchResult createObjects(List<T> objs) {
+        return timed_batch("createObjects", objs, () -> client.createObjects(objs));
+    }
+
+    @Override
+    public <T extends PassEntity> PassClientBatchResult updateObjects(List<T> objs) {
+        return timed_batch("updateObjects", objs, () -> client.updateObjects(objs));
+    }
+
+    @Override
+    public <T extends PassEntity> PassClientBatchResult deleteObjects(List<T> objs) {
+        return timed_batch("deleteObjects", objs, () -> client.deleteObjects(objs));
+    }
+
+    @Override
+    public <T extends PassEntity> PassClientResult<T> selectObjects(PassClientSelector<T> selector)
+            throws IOException {
+        String type = type_of(selector.getType());
+        PassClientResult<T> result = timed(type, "select", () -> client.selectObjects(selector));
+
+        if (result != null && result.getObjects() != null) {
+            record_rows(type, "select", result.getObjects().size());
+        }
+
+        return result;
+    }
+
+    @Override
+    public <T extends PassEntity> long countObjects(PassClientSelector<T> selector) throws IOException {
+        return timed(type_of(selector.getType()), "count", () -> client.countObjects(selector));
+    }
+
+    @Override
+    public <T extends PassEntity> Stream<T> streamObjects(PassClientSelector<T> selector) throws IOException {
+        String type = type_of(selector.getType());
+        return count_rows(type, "stream", timed(type, "stream", () -> client.streamObjects(selector)));
+    }
+
+    @Override
+    public <T extends PassEntity> Stream<T> streamObjects(PassClientSelector<T> selector, int prefetch)
+            throws IOException {
+        String type = type_of(selector.getType());
+        return count_rows(type, "stream", timed(type, "stream", () -> client.streamObjects(selector, prefetch)));
+    }
+
+    @Override
+    public <T extends PassEntity> Stream<T> parallelStreamObjects(PassClientSelector<T> selector, int parallelism)
+            throws IOException {
+        String type = type_of(selector.getType());
+        return count_rows(type, "parallelStream", timed(type, "parallelStream",
+                () -> client.parallelStreamObjects(selector, parallelism)));
+    }
+
+    @Override
+    public <R> R inTransaction(UnitOfWork<R> work) throws IOException {
+        return timed(NO_TYPE, "transaction",
+                () -> client.inTransaction(tx -> work.apply(new MeteredPassClient(tx, registry))));
+    }
+
+    @Override
+    public PassClient readSession() {
+        return new MeteredPassClient(client.readSession(), registry);
+    }
+
+    @Override
+    public void close() throws IOException {
+        client.close();
+    }
+
+    private <R> R timed(String type, String operation, Operation<R> op) throws IOException {
+        long start = System.nanoTime();
+        String outcome = ERROR;
+
+        try {
+            R result = op.run();
+            outcome = SUCCESS;
+            return result;
+        } finally {
+            record(type, operation, outcome, start);
+        }
+    }
+
+    private void timed_void(String type, String operation, VoidOperation op) throws IOException {
+        timed(type, operation, () -> {
+            op.run();
+            return null;
+        });
+    }
+
+    /**
+     * Time a batch operation and count its objects by type and outcome. The operation is tagged with the type of
+     * the first object.
+     */
+    private <T extends PassEntity> PassClientBatchResult timed_batch(String operation, List<T> objs,
+            Supplier<PassClientBatchResult> op) {
+        long start = System.nanoTime();
+        PassClientBatchResult result = null;
+
+        try {
+            result = op.get();
+            return result;
+        } finally {
+            record(objs.isEmpty() ? NO_TYPE : type_of(objs.get(0)), operation,
+                    result != null && result.isSuccess() ? SUCCESS : ERROR, start);
+
+            Map<String, long[]> counts = new HashMap<>();
+
+            for (int i = 0; i < objs.size(); i++) {
+                boolean failed = result == null || result.getFailures().containsKey(i);
+                counts.computeIfAbsent(type_of(objs.get(i)), t -> new long[2])[failed ? 1 : 0]++;
+            }
+
+            for (Map.Entry<String, long[]> entry : counts.entrySet()) {
+                count_objects(entry.getKey(), operation, SUCCESS, entry.getValue()[0]);
+                count_objects(entry.getKey(), operation, ERROR, entry.getValue()[1]);
+            }
+        }
+    }
+
+    private void record(String type, String operation, String outcome, long start) {
+        Timer.builder(REQUESTS)
+            .description("Latency of PassClient operations")
+            .tags("type", type, "operation", operation, "outcome", outcome)
+            .publishPercentileHistogram()
+            .minimumExpectedValue(Duration.ofMillis(1))
+            .maximumExpectedValue(Duration.ofSeconds(30))
+            .register(registry)
+            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private void count_objects(String type, String operation, String outcome, long count) {
+        if (count > 0) {
+            Counter.builder(OBJECTS)
+                .description("Objects written by PassClient batch operations")
+                .tags("type", type, "operation", operation, "outcome", outcome)
+                .register(registry)
+                .increment(count);
+        }
+    }
+
+    private void record_rows(String type, String operation, long rows) {
+        DistributionSummary.builder(ROWS)
+            .description("Objects returned by PassClient reads")
+            .baseUnit("rows")
+            .tags("type", type, "operation", operation)
+            .publishPercentileHistogram()
+            .maximumExpectedValue(10000.0)
+            .register(registry)
+            .record(rows);
+    }
+
+    private <T extends PassEntity> Stream<T> count_rows(String type, String operation, Stream<T> stream) {
+        AtomicLong rows = new AtomicLong();
+
+        return stream.peek(o -> rows.incrementAndGet()).onClose(() -> record_rows(type, operation, rows.get()));
+    }
+
+    private static String type_of(Class<?> type) {
+        return type == null ? NO_TYPE : PassEntityAccessors.getEntityName(type);
+    }
+
+    private static String type_of(PassEntity obj) {
+        return type_of(Hibernate.getClass(obj));
+    }
+}
@@ -17,8 +17,13 @@ package org.eclipse.pass.object;
 
 import java.io.Closeable;
 import java.io.IOException;
-import java.util.Spliterator;
-import java.util.function.Consumer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -41,6 +46,16 @@ public interface PassClient extends Closeable {
         return new ElideDataStorePassClient(elide);
     }
 
+    /**
+     * Return a new PassClient instance which records metrics of its operations in the global registry.
+     *
+     * @param elide Elide client will connect to
+     * @return new instance
+     */
+    static PassClient newMeteredInstance(RefreshableElide elide) {
+        return new MeteredPassClient(newInstance(elide));
+    }
+
     /**
      * Create a new object in the repository.
      * The id of the object must be null and will be set by the method.
@@ -60,6 +75,39 @@ public interface PassClient extends Closeable {
      */
     <T extends PassEntity> void updateObject(T obj) throws IOException;
 
+    /**
+     * Update only the named attributes and relationships of an existing object to their values in the
+     * given object. Other fields of the existing object are left unchanged.
+     *
+     * The default implementation updates the whole object.
+     *
+     * @param <T> object type
+     * @param obj object with the new values
+     * @param fields names of the attributes and relationships to update
+     * @throws IOException if operation fails
+     */
+    default <T extends PassEntity> void updateFields(T obj, Set<String> fields) throws IOException {
+        updateObject(obj);
+    }
+
+    /**
+     * Create the object or, if an object of the same type has the same values for the natural key fields,
+     * update that object instead. The id of the given object is set to the id of the persisted object.
+     * A natural key field which is a collection matches an object with any of its values.
+     * The clients which run against Elide lock the natural key in the database, so concurrent upserts of
+     * the same natural key are serialized across every node.
+     *
+     * The default implementation selects the matching object and then creates or updates it without locking.
+     *
+     * @param <T> object type
+     * @param obj object to persist
+     * @param fields names of the natural key fields such as localKey
+     * @throws IOException if the natural key has no value, matches more than one object, or operation fails
+     */
+    default <T extends PassEntity> void upsert(T obj, String... fields) throws IOException {
+        PassClientUpserts.write(this, obj, fields);
+    }
+
     /**
      * Retrieve an object from the repository.
      *
@@ -71,6 +119,41 @@ public interface PassClient extends Closeable {
      */
     <T extends PassEntity> T getObject(Class<T> type, Long id) throws IOException;
 
+    /**
+     * Retrieve objects from the repository. The objects are selected by id in chunks,
+     * so retrieving many objects only takes a few queries.
+     *
+     * @param <T> object type
+     * @param type class of the objects
+     * @param ids identifiers of the objects
+     * @return Persisted objects in the order of the ids with null for objects that do not exist
+     * @throws IOException if operation fails
+     */
+    default <T extends PassEntity> List<T> getObjects(Class<T> type, Collection<Long> ids) throws IOException {
+        Set<Long> unique_ids = new LinkedHashSet<>(ids);
+        unique_ids.remove(null);
+
+        List<Long> values = new ArrayList<>(unique_ids);
+        PassFilter.Field id_field = PassFilter.field(type, "id");
+
+        Map<Long, T> found = new HashMap<>();
+        PassClientSelector<T> selector = new PassClientSelector<>(type);
+        int chunk = selector.getLimit();
+        selector.setComputeTotal(false);
+
+        for (int start = 0; start < values.size(); start += chunk) {
+            List<Long> chunk_values = values.subList(start, Math.min(values.size(), start + chunk));
+
+            selector.setFilter(id_field.in(chunk_values.toArray()));
+            selectObjects(selector).getObjects().forEach(o -> found.put(o.getId(), o));
+        }
+
+        List<T> result = new ArrayList<>(ids.size());
+        ids.forEach(id -> result.add(id == null ? null : found.get(id)));
+
+        return result;
+    }
+
     /**
      * Delete the object in the repository with the given type and id.
      *
@@ -92,6 +175,113 @@ public interface PassClient extends Closeable {
         deleteObject(obj.getClass(), obj.getId());
     }
 
+    /**
+     * Create new objects in the repository. The ids of the objects must be null and will be set by the method.
+     * A failure for one object does not prevent the others from being created.
+     *
+     * The default implementation creates each object separately.
+     *
+     * @param <T> object type
+     * @param objs objects to create
+     * @return Result reporting the failures
+     */
+    default <T extends PassEntity> PassClientBatchResult createObjects(List<T> objs) {
+        PassClientBatchResult result = new PassClientBatchResult(objs.size());
+
+        for (int i = 0; i < objs.size(); i++) {
+            try {
+                createObject(objs.get(i));
+            } catch (IOException e) {
+                result.getFailures().put(i, e);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Update existing objects. A failure for one object does not prevent the others from being updated.
+     *
+     * The default implementation updates each object separately.
+     *
+     * @param <T> object type
+     * @param objs objects to persist
+     * @return Result reporting the failures
+     */
+    default <T extends PassEntity> PassClientBatchResult updateObjects(List<T> objs) {
+        PassClientBatchResult result = new PassClientBatchResult(objs.size());
+
+        for (int i = 0; i < objs.size(); i++) {
+            try {
+                updateObject(objs.get(i));
+            } catch (IOException e) {
+                result.getFailures().put(i, e);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Delete objects in the repository. A failure for one object does not prevent the others from being deleted.
+     *
+     * The default implementation deletes each object separately.
+     *
+     * @param <T> object type
+     * @param objs objects to delete
+     * @return Result reporting the failures
+     */
+    default <T extends PassEntity> PassClientBatchResult deleteObjects(List<T> objs) {
+        PassClientBatchResult result = new PassClientBatchResult(objs.size());
+
+        for (int i = 0; i < objs.size(); i++) {
+            try {
+                deleteObject(objs.get(i));
+            } catch (IOException e) {
+                result.getFailures().put(i, e);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Work done with a client in a single transaction.
+     *
+     * @param <R> result type
+     */
+    @FunctionalInterface
+    interface UnitOfWork<R> {
+        /**
+         * @param tx client which performs all reads and writes in the transaction
+         * @return result of the work
+         * @throws IOException if the work fails
+         */
+        R apply(PassClient tx) throws IOException;
+    }
+
+    /**
+     * Run work in a single transaction. The client given to the work performs all of its reads and
+     * writes in one transaction which is flushed and committed once when the work returns. If the work
+     * throws, nothing it wrote is committed. The given client must not be used after the work returns
+     * and does not need to be closed. Calling inTransaction on the given client joins the transaction.
+     *
+     * @param <R> result type
+     * @param work work to do in the transaction
+     * @return result of the work
+     * @throws IOException if the work or the commit fails
+     */
+    <R> R inTransaction(UnitOfWork<R> work) throws IOException;
+
+    /**
+     * Return a client whose reads share one session with the repository until it is closed.
+     * Relationships of objects it returns can be loaded lazily while it is open.
+     * The returned client must be closed by the caller.
+     *
+     * @return client with a read session
+     */
+    PassClient readSession();
+
     /**
      * Select objects from the repository matching the selector.
      *
@@ -102,8 +292,30 @@ public interface PassClient extends Closeable {
      */
     <T extends PassEntity> PassClientResult<T> selectObjects(PassClientSelector<T> selector) throws IOException;
 
+    /**
+     * Count the objects in the repository matching the selector. The offset and limit of the selector are ignored.
+     *
+     * The default implementation selects a single object along with the total.
+     *
+     * @param <T> object type
+     * @param selector determines which objects to count
+     * @return Number of matching objects or -1 if not known
+     * @throws IOException if operation fails
+     */
+    default <T extends PassEntity> long countObjects(PassClientSelector<T> selector) throws IOException {
+        PassClientSelector<T> count_selector = new PassClientSelector<>(selector);
+
+        count_selector.setOffset(0);
+        count_selector.setLimit(1);
+        count_selector.setComputeTotal(true);
+
+        return selectObjects(count_selector).getTotal();
+    }
+
     /**
      * Stream all objects in the repository matching the selector starting from the selector offset.
+     * If the selector uses keyset pagination, the stream instead starts after the selector after id
+     * and each following page is selected by the id of the last object seen.
      *
      * @param <T> object type
      * @param selector determines which objects to retrieve
@@ -111,46 +323,48 @@ public interface PassClient extends Closeable {
      * @throws IOException if operation fails
      */
     default <T extends PassEntity> Stream<T> streamObjects(PassClientSelector<T> selector) throws IOException {
-        Spliterator<T> iter = new Spliterator<T>() {
-            PassClientResult<T> result = selectObjects(selector);
-            int next = 0;
-
-            @Override
-            public int characteristics() {
-                return NONNULL | CONCURRENT;
-            }
-
-            @Override
-            public long estimateSize() {
-                return result.getTotal();
-            }
-
-            @Override
-            public boolean tryAdvance(Consumer<? super T> consumer) {
-                if (next == result.getObjects().size()) {
-                    try {
-                        selector.setOffset(selector.getOffset() + selector.getLimit());
-                        result = selectObjects(selector);
-                        next = 0;
-                    } catch (IOException e) {
-                        throw new RuntimeException(e);
-                    }
-
-                    if (result.getObjects().size() == 0) {
-                        return false;
-                    }
-                }
-
-                consumer.accept(result.getObjects().get(next++));
-                return true;
-            }
+        return StreamSupport.stream(new PassClientSpliterator<T>(this::selectObjects, selector), false);
+    }
 
-            @Override
-            public Spliterator<T> trySplit() {
-                return null;
-            }
-        };
+    /**
+     * Stream all objects in the repository matching the selector like {@link #streamObjects(PassClientSelector)},
+     * but retrieve up to prefetch pages in the background while the current page is being consumed.
+     * Each page is retrieved independently and its resources are released when the stream moves past it,
+     * so objects should be fully used while their page is being consumed. The stream must be closed
+     * to stop retrieval early. Implementations may bound how many streams retrieve pages at once,
+     * in which case further streams wait.
+     *
+     * The default implementation does not prefetch.
+     *
+     * @param <T> object type
+     * @param selector determines which objects to retrieve
+     * @param prefetch maximum number of pages to retrieve ahead of the consumer
+     * @return Stream of matching objects
+     * @throws IOException if operation fails
+     */
+    default <T extends PassEntity> Stream<T> streamObjects(PassClientSelector<T> selector, int prefetch)
+            throws IOException {
+        return streamObjects(selector);
+    }
 
-        return StreamSupport.stream(iter, false);
+    /**
+     * Stream all objects in the repository matching the selector starting from the selector offset in parallel.
+     * The matching objects are split into ranges of pages which are retrieved independently of each other,
+     * at most parallelism at a time. The objects are sorted by the sorting of the selector followed by the id
+     * so that the ranges do not overlap and the stream is ordered.
+     * Keyset pagination is not supported and results in a sequential stream.
+     *
+     * Resources used to retrieve the pages concurrently are released when the stream or the client is closed.
+     * The default implementation returns the sequential stream of {@link #streamObjects(PassClientSelector)}.
+     *
+     * @param <T> object type
+     * @param selector determines which objects to retrieve
+     * @param parallelism maximum number of pages to retrieve concurrently
+     * @return Parallel stream of matching objects
+     * @throws IOException if operation fails
+     */
+    default <T extends PassEntity> Stream<T> parallelStreamObjects(PassClientSelector<T> selector, int parallelism)
+            throws IOException {
+        return streamObjects(selector);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.object;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * PassClientBatchResult represents the outcome of an operation on a batch of objects.
+ * Objects are identified by their position in the batch.
+ */
+public class PassClientBatchResult {
+    private final int size;
+    private final Map<Integer, IOException> failures;
+
+    public PassClientBatchResult(int size) {
+        this.size = size;
+        this.failures = new TreeMap<>();
+    }
+
+    /**
+     * @return The number of objects in the batch.
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return Failures keyed by the position of the object in the batch.
+     */
+    public Map<Integer, IOException> getFailures() {
+        return failures;
+    }
+
+    /**
+     * @return Whether the operation succeeded for every object.
+     */
+    public boolean isSuccess() {
+        return failures.isEmpty();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.object;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceException;
+import javax.persistence.PersistenceUnit;
+
+import com.yahoo.elide.core.RequestScope;
+import com.yahoo.elide.core.dictionary.EntityDictionary;
+import com.yahoo.elide.core.request.EntityProjection;
+import com.yahoo.elide.datastores.jpa.porting.EntityManagerWrapper;
+import com.yahoo.elide.datastores.jpql.query.RootCollectionPageTotalsQueryBuilder;
+
+/**
+ * Count the objects matching a selector with a single COUNT query, without loading any of them.
+ * The query is built by Elide from the filter of the selector in the same way as the totals of a page.
+ *
+ * The entity manager factory of the JPA store is found through the injector of the dictionary, which
+ * injects Spring beans when Elide is configured by Spring Boot. Without one, objects cannot be counted
+ * this way.
+ */
+class PassClientCounts {
+    private static final Map<EntityDictionary, Optional<EntityManagerFactory>> FACTORIES =
+        Collections.synchronizedMap(new WeakHashMap<>());
+
+    private PassClientCounts() {}
+
+    private static class FactoryTarget {
+        @PersistenceUnit
+        EntityManagerFactory factory;
+    }
+
+    /**
+     * @param dict dictionary of the Elide running the JPA store
+     * @return entity manager factory of the store or null if it cannot be found
+     */
+    static EntityManagerFactory getFactory(EntityDictionary dict) {
+        return FACTORIES.computeIfAbsent(dict, d -> {
+            FactoryTarget target = new FactoryTarget();
+
+            try {
+                d.getInjector().inject(target);
+            } catch (RuntimeException e) {
+                // Not injected
+            }
+
+            return Optional.ofNullable(target.factory);
+        }).orElse(null);
+    }
+
+    /**
+     * @param factory entity manager factory of the JPA store
+     * @param scope scope used to parse the filter of the selector
+     * @param selector selector of the objects, the offset and limit are ignored
+     * @return number of matching objects
+     * @throws IOException if the selector is invalid or the query fails
+     */
+    static long count(EntityManagerFactory factory, RequestScope scope, PassClientSelector<?> selector)
+            throws IOException {
+        EntityProjection projection = PassClientProjections.get(scope, selector);
+        EntityManager em = factory.createEntityManager();
+
+        try {
+            Number total = new RootCollectionPageTotalsQueryBuilder(projection, scope.getDictionary(),
+                    new EntityManagerWrapper(em)).build().uniqueResult();
+
+            return total == null ? 0 : total.longValue();
+        } catch (PersistenceException e) {
+            throw new IOException("Failed to count objects: " + e.getMessage(), e);
+        } finally {
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.object;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+import com.yahoo.elide.core.RequestScope;
+import com.yahoo.elide.core.dictionary.EntityDictionary;
+import com.yahoo.elide.core.type.ClassType;
+import com.yahoo.elide.core.type.Type;
+import org.hibernate.Hibernate;
+
+/**
+ * Load the relationships named by the include paths of a selector for a page of objects while the
+ * transaction which loaded them is still available. Each relationship is initialized for all objects
+ * at one level of a path before moving to the next level. Hibernate batch fetching then loads the
+ * relationship for many objects in each query instead of one query per object.
+ */
+class PassClientIncludes {
+    private PassClientIncludes() {}
+
+    /**
+     * @param scope scope of the transaction which loaded the objects
+     * @param type type of the objects
+     * @param objects objects to load relationships of
+     * @param paths dotted relationship paths such as "grants.pi"
+     * @throws IOException if a path does not name relationships
+     */
+    static void load(RequestScope scope, Class<?> type, Collection<?> objects, List<String> paths)
+            throws IOException {
+        for (String path : paths) {
+            load(scope, type, objects, path);
+        }
+    }
+
+    private static void load(RequestScope scope, Class<?> type, Collection<?> objects, String path)
+            throws IOException {
+        EntityDictionary dict = scope.getDictionary();
+        Type<?> current_type = ClassType.of(type);
+        Collection<?> current = objects;
+
+        for (String name : path.split("\\.", -1)) {
+            if (!dict.isRelation(current_type, name)) {
+                throw new IOException("Include path " + path + " has unknown relationship: " + name);
+            }
+
+            Set<Object> next = Collections.newSetFromMap(new IdentityHashMap<>());
+
+            for (Object obj : current) {
+                Object value = dict.getValue(obj, name, scope);
+
+                if (value == null) {
+                    continue;
+                }
+
+                Hibernate.initialize(value);
+
+                if (value instanceof Collection) {
+                    next.addAll((Collection<?>) value);
+                } else {
+                    next.add(value);
+                }
+            }
+
+            current = next;
+            current_type = dict.getParameterizedType(current_type, name);
+        }
+    }
+}
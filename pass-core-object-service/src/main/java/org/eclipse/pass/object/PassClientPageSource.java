@@ -0,0 +1,54 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.object;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import org.eclipse.pass.object.model.PassEntity;
+
+/**
+ * PassClientPageSource retrieves pages of objects matching a selector for a {@link PassClientSpliterator}.
+ */
+interface PassClientPageSource<T extends PassEntity> extends Closeable {
+    /**
+     * Select objects matching the selector.
+     *
+     * @param selector determines which objects to retrieve
+     * @return Matching objects
+     * @throws IOException if operation fails
+     */
+    PassClientResult<T> select(PassClientSelector<T> selector) throws IOException;
+
+    /**
+     * Return a new source which may be used concurrently with this one.
+     * The default implementation returns null.
+     *
+     * @return independent source or null if not supported
+     */
+    default PassClientPageSource<T> fork() {
+        return null;
+    }
+
+    /**
+     * Release resources held by the source. The default implementation does nothing.
+     *
+     * @throws IOException if operation fails
+     */
+    @Override
+    default void close() throws IOException {
+    }
+}
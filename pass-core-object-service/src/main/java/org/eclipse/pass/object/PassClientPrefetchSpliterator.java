@@ -0,0 +1,299 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.object;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.util.Collections;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.eclipse.pass.object.model.PassEntity;
+
+/**
+ * Spliterator over the objects matching a selector which retrieves pages in the background.
+ *
+ * While the consumer processes a page, the following pages are retrieved on an executor and queued up
+ * to the prefetch depth. Each page is retrieved from its own fork of the page source which
+ * is closed when the consumer moves past the page. Objects should therefore be fully used while their
+ * page is being consumed. Closing the spliterator stops the background retrieval and releases all
+ * queued pages. Since each page is retrieved by a separate query, offset pagination sorts by the id
+ * last so that pages do not overlap.
+ *
+ * The retrieval occupies a thread of the executor until the last page is queued, and a stream holds at
+ * most prefetch + 2 page sources at once. The number of threads of the executor therefore bounds how many
+ * streams retrieve pages at the same time and so the number of connections they use. Streams beyond that
+ * wait for a thread. The default executor is shared and has {@link #DEFAULT_THREADS} threads.
+ *
+ * A spliterator which is abandoned without being closed is closed once it is garbage collected.
+ * The background retrieval does not reference the spliterator and never waits on a full queue for
+ * longer than a short timeout, so it notices and stops.
+ */
+class PassClientPrefetchSpliterator<T extends PassEntity> implements Spliterator<T> {
+    /**
+     * Number of threads of the default executor. This is kept well below the size of the default
+     * connection pool so that prefetching streams cannot exhaust it.
+     */
+    static final int DEFAULT_THREADS = 4;
+
+    private static final Executor DEFAULT_EXECUTOR = create_default_executor();
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    // Longest time the producer waits for the consumer before checking whether it was closed
+    private static final long OFFER_TIMEOUT_MILLIS = 500;
+
+    private final Producer<T> producer;
+    private final Cleaner.Cleanable cleanable;
+    private final boolean ordered;
+    private int next;
+    private long total;
+
+    private static class Page<T> {
+        final List<T> objects;
+        final long total;
+        final PassClientPageSource<T> source;
+        final RuntimeException error;
+        final boolean last;
+
+        Page(List<T> objects, long total, PassClientPageSource<T> source, RuntimeException error, boolean last) {
+            this.objects = objects;
+            this.total = total;
+            this.source = source;
+            this.error = error;
+            this.last = last;
+        }
+    }
+
+    /**
+     * Retrieves pages into the queue. Holds everything which must be released when the spliterator is
+     * closed or collected, and must not refer to the spliterator.
+     */
+    private static class Producer<T extends PassEntity> implements Runnable {
+        final BlockingQueue<Page<T>> queue;
+        final PassClientSelector<T> selector;
+        final PassClientPageSource<T> source;
+        volatile boolean closed;
+        volatile Future<?> future;
+
+        // Page being consumed
+        volatile Page<T> current;
+
+        Producer(PassClientPageSource<T> source, PassClientSelector<T> selector, int prefetch) {
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, prefetch));
+            this.selector = selector;
+            this.source = source;
+        }
+
+        @Override
+        public void run() {
+            boolean last = false;
+
+            while (!closed && !last) {
+                Page<T> result;
+
+                try {
+                    result = retrieve();
+                } catch (IOException e) {
+                    result = new Page<>(Collections.emptyList(), -1, null, new UncheckedIOException(e), true);
+                } catch (RuntimeException e) {
+                    result = new Page<>(Collections.emptyList(), -1, null, e, true);
+                }
+
+                try {
+                    while (!queue.offer(result, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                        if (closed) {
+                            release(result);
+                            return;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    release(result);
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+
+                // The spliterator may have been closed and drained while waiting
+                if (closed) {
+                    drain();
+                }
+
+                last = result.last;
+            }
+        }
+
+        private Page<T> retrieve() throws IOException {
+            PassClientPageSource<T> fork = source.fork();
+            PassClientResult<T> result;
+
+            try {
+                result = fork.select(selector);
+            } catch (IOException | RuntimeException e) {
+                fork.close();
+                throw e;
+            }
+
+            List<T> objects = result.getObjects();
+            boolean last = objects.size() < selector.getLimit();
+
+            if (!last) {
+                if (selector.isKeysetPagination()) {
+                    selector.setAfterId(objects.get(objects.size() - 1).getId());
+                } else {
+                    selector.setOffset(selector.getOffset() + selector.getLimit());
+                }
+            }
+
+            return new Page<>(objects, result.getTotal(), fork, null, last);
+        }
+
+        void drain() {
+            Page<T> queued;
+
+            while ((queued = queue.poll()) != null) {
+                release(queued);
+            }
+        }
+
+        // Runs once, when the spliterator is closed or collected
+        void close() {
+            closed = true;
+
+            if (future != null) {
+                future.cancel(true);
+            }
+
+            drain();
+            release(current);
+            current = null;
+        }
+    }
+
+    /**
+     * Start retrieving pages in the background.
+     *
+     * @param source source which is forked for each page
+     * @param selector determines which objects to retrieve
+     * @param prefetch maximum number of pages retrieved ahead of the consumer
+     * @param executor executor which retrieves the pages or null for the default
+     */
+    PassClientPrefetchSpliterator(PassClientPageSource<T> source, PassClientSelector<T> selector, int prefetch,
+            Executor executor) {
+        PassClientSelector<T> copy = new PassClientSelector<>(selector);
+
+        if (!selector.isKeysetPagination()) {
+            copy.setSorting(PassClientSpliterator.sort_by_id(selector.getSorting()));
+        }
+
+        this.producer = new Producer<>(source, copy, prefetch);
+        this.ordered = copy.getSorting() != null || copy.isKeysetPagination();
+        this.total = -1;
+
+        FutureTask<Void> task = new FutureTask<>(producer, null);
+        this.producer.future = task;
+        (executor == null ? DEFAULT_EXECUTOR : executor).execute(task);
+
+        this.cleanable = CLEANER.register(this, producer::close);
+    }
+
+    private static Executor create_default_executor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(DEFAULT_THREADS, DEFAULT_THREADS, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    Thread thread = new Thread(r, "pass-client-prefetch");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        executor.allowCoreThreadTimeOut(true);
+
+        return executor;
+    }
+
+    private static <T> void release(Page<T> page) {
+        if (page != null && page.source != null) {
+            try {
+                page.source.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Stop retrieving pages and release all retrieved pages.
+     */
+    void close() {
+        cleanable.clean();
+    }
+
+    @Override
+    public int characteristics() {
+        return ordered ? NONNULL | ORDERED : NONNULL;
+    }
+
+    @Override
+    public long estimateSize() {
+        return total < 0 ? Long.MAX_VALUE : total;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> consumer) {
+        Page<T> page = producer.current;
+
+        while (page == null || next == page.objects.size()) {
+            if (producer.closed || (page != null && page.last)) {
+                return false;
+            }
+
+            Page<T> previous = page;
+
+            try {
+                page = producer.queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new UncheckedIOException(new InterruptedIOException("Interrupted while waiting for page"));
+            }
+
+            producer.current = page;
+            next = 0;
+            release(previous);
+
+            if (page.error != null) {
+                throw page.error;
+            }
+
+            total = page.total;
+        }
+
+        consumer.accept(page.objects.get(next++));
+        return true;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        return null;
+    }
+}
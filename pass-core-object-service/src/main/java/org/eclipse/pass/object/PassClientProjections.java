@@ -0,0 +1,133 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.object;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+
+import com.yahoo.elide.ElideSettings;
+import com.yahoo.elide.core.Path;
+import com.yahoo.elide.core.RequestScope;
+import com.yahoo.elide.core.exceptions.InvalidValueException;
+import com.yahoo.elide.core.filter.Operator;
+import com.yahoo.elide.core.filter.dialect.ParseException;
+import com.yahoo.elide.core.filter.expression.AndFilterExpression;
+import com.yahoo.elide.core.filter.expression.FilterExpression;
+import com.yahoo.elide.core.filter.predicates.FilterPredicate;
+import com.yahoo.elide.core.pagination.PaginationImpl;
+import com.yahoo.elide.core.request.EntityProjection;
+import com.yahoo.elide.core.request.Pagination;
+import com.yahoo.elide.core.request.Sorting;
+import com.yahoo.elide.core.sort.SortingImpl;
+import com.yahoo.elide.core.type.ClassType;
+
+/**
+ * Convert a PassClientSelector to the EntityProjection Elide uses to load objects.
+ */
+class PassClientProjections {
+    private PassClientProjections() {}
+
+    private static FilterExpression parse_filter(RequestScope scope, String filter) throws IOException {
+        try {
+            MultivaluedMap<String, String> params = new MultivaluedHashMap<>();
+            params.add("filter", filter);
+            return scope.getFilterDialect().parseGlobalExpression(scope.getPath(), params, scope.getApiVersion());
+        } catch (ParseException e) {
+            throw new IOException("Failed to parse filter of selector: " + filter, e);
+        }
+    }
+
+    /**
+     * @param scope scope of the request
+     * @param selector selector to convert
+     * @return projection selecting the objects of the selector
+     * @throws IOException if the filter or sorting of the selector is invalid
+     */
+    static EntityProjection get(RequestScope scope, PassClientSelector<?> selector) throws IOException {
+        ElideSettings settings = scope.getElideSettings();
+        int offset = selector.isKeysetPagination() ? 0 : selector.getOffset();
+        Pagination pagination = new PaginationImpl(selector.getType(), offset, selector.getLimit(),
+                settings.getDefaultPageSize(), settings.getDefaultMaxPageSize(), selector.isComputeTotal(), false);
+
+        FilterExpression filter = null;
+
+        if (selector.getPassFilter() != null) {
+            filter = selector.getPassFilter().toFilterExpression(settings.getDictionary());
+        } else if (selector.getFilter() != null) {
+            filter = FilterExpressionCache.of(settings.getDictionary()).get(scope.getPath(), selector.getFilter(),
+                    f -> parse_filter(scope, f));
+        }
+
+        if (selector.isKeysetPagination() && selector.getAfterId() != null) {
+            FilterExpression after = new FilterPredicate(new Path(ClassType.of(selector.getType()),
+                    settings.getDictionary(), "id"), Operator.GT, List.of(selector.getAfterId()));
+            filter = filter == null ? after : new AndFilterExpression(filter, after);
+        }
+
+        Sorting sorting = get_sorting(settings, selector);
+
+        return EntityProjection.builder().type(selector.getType()).pagination(pagination).filterExpression(filter)
+                .sorting(sorting).build();
+    }
+
+    /**
+     * Parse the JSON:API sort syntax of the selector, a comma separated list of fields each optionally
+     * prefixed with + for ascending or - for descending order. The id is added as a final sort key
+     * so that pages are stable. Keyset pagination always sorts by id.
+     */
+    private static Sorting get_sorting(ElideSettings settings, PassClientSelector<?> selector) throws IOException {
+        String sort = selector.isKeysetPagination() ? null : selector.getSorting();
+
+        if (!selector.isKeysetPagination() && (sort == null || sort.isBlank())) {
+            return null;
+        }
+
+        Map<String, Sorting.SortOrder> rules = new LinkedHashMap<>();
+
+        if (sort != null) {
+            for (String field : sort.split(",")) {
+                field = field.trim();
+
+                if (field.startsWith("-")) {
+                    rules.put(field.substring(1), Sorting.SortOrder.desc);
+                } else if (field.startsWith("+")) {
+                    rules.put(field.substring(1), Sorting.SortOrder.asc);
+                } else {
+                    rules.put(field, Sorting.SortOrder.asc);
+                }
+            }
+        }
+
+        rules.putIfAbsent("id", Sorting.SortOrder.asc);
+
+        SortingImpl sorting = new SortingImpl(rules, ClassType.of(selector.getType()), Collections.emptySet(),
+                settings.getDictionary());
+
+        try {
+            // Validates the fields
+            sorting.getSortingPaths();
+        } catch (InvalidValueException e) {
+            throw new IOException("Failed to parse sorting of selector: " + sort, e);
+        }
+
+        return sorting;
+    }
+}
@@ -15,12 +15,22 @@
  */
 package org.eclipse.pass.object;
 
+import java.util.List;
+
 import org.eclipse.pass.object.model.PassEntity;
 
 /**
  * PassClientSelector is used to select objects in the repository.
  * See https://elide.io/pages/guide/v6/10-jsonapi.html for information on the
  * sort and filter syntax.
+ *
+ * By default results are paged using an offset. When keyset pagination is enabled,
+ * objects are instead returned in id order starting after a given id. Each page then
+ * costs the same to retrieve no matter how deep into the results it is and the
+ * pages stay stable while objects are being added.
+ *
+ * Relationships which the caller will use can be included so they are loaded with the page
+ * instead of one object at a time.
  */
 public class PassClientSelector<T extends PassEntity> {
     private static final int DEFAULT_LIMIT = 500;
@@ -30,6 +40,11 @@ public class PassClientSelector<T extends PassEntity> {
     private Class<T> type;
     private String sorting;
     private String filter;
+    private PassFilter pass_filter;
+    private boolean keyset;
+    private Long afterId;
+    private boolean total;
+    private List<String> include;
 
     /**
      * Match all objects of the given type.
@@ -56,6 +71,25 @@ public class PassClientSelector<T extends PassEntity> {
         this.type = type;
         this.filter = filter;
         this.sorting = sorting;
+        this.total = true;
+    }
+
+    /**
+     * Copy constructor, this will copy the values of the selector provided into the new selector
+     *
+     * @param selector the selector to copy
+     */
+    public PassClientSelector(PassClientSelector<T> selector) {
+        this.offset = selector.offset;
+        this.limit = selector.limit;
+        this.type = selector.type;
+        this.filter = selector.filter;
+        this.pass_filter = selector.pass_filter;
+        this.sorting = selector.sorting;
+        this.keyset = selector.keyset;
+        this.afterId = selector.afterId;
+        this.total = selector.total;
+        this.include = selector.include;
     }
 
     public int getOffset() {
@@ -96,5 +130,89 @@ public class PassClientSelector<T extends PassEntity> {
 
     public void setFilter(String filter) {
         this.filter = filter;
+        this.pass_filter = null;
+    }
+
+    /**
+     * @return Typed filter or null if the filter was not set as a typed filter
+     */
+    public PassFilter getPassFilter() {
+        return pass_filter;
+    }
+
+    /**
+     * Set the filter using a typed filter. The RSQL filter is set to the RSQL form of the typed filter.
+     *
+     * @param filter Return objects which match this filter or null for no filter
+     */
+    public void setFilter(PassFilter filter) {
+        this.pass_filter = filter;
+        this.filter = filter == null ? null : filter.toRSQL();
+    }
+
+    /**
+     * @return Whether keyset pagination is used instead of offset pagination
+     */
+    public boolean isKeysetPagination() {
+        return keyset;
+    }
+
+    /**
+     * Switch between offset and keyset pagination. When keyset pagination is used
+     * the offset and sorting are ignored, objects are sorted by id, and only objects
+     * with an id greater than the after id are matched.
+     *
+     * @param keyset whether to use keyset pagination
+     */
+    public void setKeysetPagination(boolean keyset) {
+        this.keyset = keyset;
+    }
+
+    /**
+     * @return Only objects with an id greater than this are matched in keyset pagination or null
+     */
+    public Long getAfterId() {
+        return afterId;
+    }
+
+    /**
+     * @param afterId Match objects with an id greater than this in keyset pagination or null for no restriction
+     */
+    public void setAfterId(Long afterId) {
+        this.afterId = afterId;
+    }
+
+    /**
+     * @return Whether the total number of matching objects is computed
+     */
+    public boolean isComputeTotal() {
+        return total;
+    }
+
+    /**
+     * Computing the total number of matching objects requires an extra query.
+     * If the total is not computed, the total of the result is -1.
+     *
+     * @param total whether to compute the total number of matching objects
+     */
+    public void setComputeTotal(boolean total) {
+        this.total = total;
+    }
+
+    /**
+     * @return Relationship paths loaded with the matched objects or null for none
+     */
+    public List<String> getInclude() {
+        return include;
+    }
+
+    /**
+     * Load relationships of the matched objects along with them. A path is a dot separated list of
+     * relationships such as "grants.pi" or "publication.journal".
+     *
+     * @param include Relationship paths to load or null for none
+     */
+    public void setInclude(List<String> include) {
+        this.include = include == null ? null : List.copyOf(include);
     }
 }
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.object;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.eclipse.pass.object.model.PassEntity;
+
+/**
+ * Spliterator over the objects matching a selector which retrieves them a page at a time.
+ *
+ * A sequential spliterator advances through the pages using offset or keyset pagination as
+ * specified by the selector and cannot be split.
+ *
+ * A splittable spliterator covers a range of offsets determined by the total number of
+ * matching objects when it was created. The total is only a snapshot, so the spliterator is
+ * not SIZED and its size is an estimate. Objects added later past the end of the range are not
+ * returned and the range ends early at a short page. It is split at page boundaries into independent
+ * ranges. Each split retrieves its pages from a forked page source so a parallel stream can
+ * retrieve pages concurrently. The number of splits is bounded. Because the ranges are
+ * retrieved by separate queries, the objects are always sorted with the id as the last sort
+ * key so that each object falls in exactly one range.
+ */
+class PassClientSpliterator<T extends PassEntity> implements Spliterator<T> {
+    private final PassClientPageSource<T> source;
+    private final PassClientSelector<T> selector;
+    private final AtomicInteger splits;
+    private long end;
+    private long total;
+    private List<T> page;
+    private int next;
+
+    /**
+     * Create a sequential spliterator. The first page is retrieved immediately.
+     *
+     * @param source source of pages
+     * @param selector determines which objects to retrieve, updated as pages are retrieved
+     * @throws IOException if operation fails
+     */
+    PassClientSpliterator(PassClientPageSource<T> source, PassClientSelector<T> selector) throws IOException {
+        this.source = source;
+        this.selector = selector;
+        this.splits = null;
+        this.end = -1;
+
+        PassClientResult<T> result = source.select(selector);
+        this.total = result.getTotal();
+        this.page = result.getObjects();
+    }
+
+    /**
+     * Create a splittable spliterator covering the offsets from the selector offset up to end.
+     * No pages are retrieved until the spliterator is traversed.
+     *
+     * @param source source of pages
+     * @param selector determines which objects to retrieve, updated as pages are retrieved
+     * @param end offset after the last object to retrieve
+     * @param splits number of splits remaining, shared by all spliterators split from this one
+     */
+    private PassClientSpliterator(PassClientPageSource<T> source, PassClientSelector<T> selector, long end,
+            AtomicInteger splits) {
+        this.source = source;
+        this.selector = selector;
+        this.splits = splits;
+        this.end = end;
+        this.total = end;
+    }
+
+    /**
+     * Create a spliterator which can be split into at most parallelism independent ranges.
+     * The total number of matching objects is looked up to determine the ranges. The sorting
+     * of the selector is extended to end with the id. A sequential
+     * spliterator is returned if parallelism is less than two, the selector uses keyset
+     * pagination, or the total is not known.
+     *
+     * @param <T> object type
+     * @param source source of pages
+     * @param selector determines which objects to retrieve
+     * @param parallelism maximum number of ranges
+     * @return spliterator
+     * @throws IOException if operation fails
+     */
+    static <T extends PassEntity> PassClientSpliterator<T> splittable(PassClientPageSource<T> source,
+            PassClientSelector<T> selector, int parallelism) throws IOException {
+        if (parallelism < 2 || selector.isKeysetPagination()) {
+            return new PassClientSpliterator<>(source, selector);
+        }
+
+        PassClientSelector<T> sizing = new PassClientSelector<>(selector);
+        sizing.setLimit(1);
+        sizing.setComputeTotal(true);
+
+        long total = source.select(sizing).getTotal();
+
+        if (total < 0) {
+            return new PassClientSpliterator<>(source, selector);
+        }
+
+        PassClientSelector<T> sorted = new PassClientSelector<>(selector);
+        sorted.setSorting(sort_by_id(selector.getSorting()));
+
+        return new PassClientSpliterator<>(source, sorted, total, new AtomicInteger(parallelism - 1));
+    }
+
+    /**
+     * Pages retrieved by separate queries only partition the matching objects if the order is total.
+     *
+     * @param sorting JSON:API sorting or null
+     * @return sorting which ends with the id
+     */
+    static String sort_by_id(String sorting) {
+        if (sorting == null || sorting.isBlank()) {
+            return "id";
+        }
+
+        for (String field : sorting.split(",")) {
+            if (field.trim().replaceFirst("^[+-]", "").equals("id")) {
+                return sorting;
+            }
+        }
+
+        return sorting + ",id";
+    }
+
+    private boolean is_splittable() {
+        return splits != null;
+    }
+
+    @Override
+    public int characteristics() {
+        int result = NONNULL;
+
+        if (selector.getSorting() != null || selector.isKeysetPagination()) {
+            result |= ORDERED;
+        }
+
+        return result;
+    }
+
+    @Override
+    public long estimateSize() {
+        if (!is_splittable()) {
+            return total < 0 ? Long.MAX_VALUE : total;
+        }
+
+        // The offset of the selector is the offset of the current page once one is loaded
+        long remaining = end - selector.getOffset();
+
+        if (page != null) {
+            remaining -= next;
+        }
+
+        return Math.max(0, remaining);
+    }
+
+    // Retrieve the next page, return false if there are no more objects.
+    private boolean next_page() throws IOException {
+        if (is_splittable()) {
+            int offset = selector.getOffset();
+
+            if (page != null) {
+                offset += selector.getLimit();
+            }
+
+            if (offset >= end) {
+                return false;
+            }
+
+            selector.setOffset(offset);
+            selector.setLimit((int) Math.min(selector.getLimit(), end - offset));
+        } else if (selector.isKeysetPagination()) {
+            if (page.size() == 0) {
+                return false;
+            }
+
+            selector.setAfterId(page.get(page.size() - 1).getId());
+        } else {
+            selector.setOffset(selector.getOffset() + selector.getLimit());
+        }
+
+        PassClientResult<T> result = source.select(selector);
+        page = result.getObjects();
+        next = 0;
+
+        if (!is_splittable()) {
+            total = result.getTotal();
+        } else if (page.size() < selector.getLimit()) {
+            // Objects were removed since the total was computed
+            end = selector.getOffset() + page.size();
+        }
+
+        return page.size() > 0;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> consumer) {
+        if (page == null || next == page.size()) {
+            try {
+                if (!next_page()) {
+                    return false;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        consumer.accept(page.get(next++));
+        return true;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        // Only split before traversal so pages are never shared between sources
+        if (!is_splittable() || page != null) {
+            return null;
+        }
+
+        int limit = selector.getLimit();
+        int offset = selector.getOffset();
+        long pages = (end - offset + limit - 1) / limit;
+
+        if (pages < 2 || splits.getAndDecrement() <= 0) {
+            return null;
+        }
+
+        PassClientPageSource<T> fork = source.fork();
+
+        if (fork == null) {
+            return null;
+        }
+
+        long mid = offset + (pages / 2) * limit;
+
+        // The prefix is returned in order to preserve encounter order
+        PassClientSelector<T> prefix = new PassClientSelector<>(selector);
+        selector.setOffset((int) mid);
+
+        return new PassClientSpliterator<>(fork, prefix, mid, splits);
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.object;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.UUID;
+
+import com.yahoo.elide.core.RequestScope;
+import com.yahoo.elide.core.datastore.DataStoreTransaction;
+import org.eclipse.pass.object.model.NaturalKeyLock;
+import org.eclipse.pass.object.model.PassEntity;
+import org.hibernate.Hibernate;
+
+/**
+ * Support for {@link PassClient#upsert(PassEntity, String...)}. The schema has no unique constraints on
+ * natural keys so the database cannot resolve conflicts itself. Instead the transaction of an upsert first
+ * inserts a {@link NaturalKeyLock} row for each natural key value. A concurrent transaction inserting the
+ * same row waits on its primary key until the first transaction ends, so the lookup and write of upserts
+ * of the same key are serialized across every node sharing the database.
+ *
+ * A natural key field which is a collection matches objects that have any of its values.
+ */
+class PassClientUpserts {
+    private PassClientUpserts() {}
+
+    /**
+     * Lock the natural key of the object, then create or update it, in the given transaction.
+     *
+     * @param <T> type of object
+     * @param tx transaction of the client
+     * @param scope scope of the transaction
+     * @param client client using the transaction
+     * @param obj object to write, its id is set to the id of the matching object
+     * @param fields natural key fields
+     * @throws IOException if the natural key is invalid, matches more than one object, or the operation fails
+     */
+    static <T extends PassEntity> void write(DataStoreTransaction tx, RequestScope scope, PassClient client, T obj,
+            String... fields) throws IOException {
+        List<NaturalKeyLock> locks = lock(tx, scope, obj, fields);
+
+        write(client, obj, fields);
+
+        // The rows inserted by the transaction keep blocking other inserts of them until it ends
+        for (NaturalKeyLock lock : locks) {
+            tx.delete(lock, scope);
+        }
+    }
+
+    private static List<NaturalKeyLock> lock(DataStoreTransaction tx, RequestScope scope, PassEntity obj,
+            String[] fields) throws IOException {
+        // Insert in order so that overlapping keys cannot deadlock
+        TreeSet<String> ids = new TreeSet<>();
+        Class<?> type = Hibernate.getClass(obj);
+
+        for (String field : fields) {
+            Object value = get_value(obj, field);
+
+            if (value instanceof Collection) {
+                for (Object member : (Collection<?>) value) {
+                    ids.add(lock_id(type, field, member));
+                }
+            } else {
+                ids.add(lock_id(type, field, value));
+            }
+        }
+
+        List<NaturalKeyLock> result = new ArrayList<>(ids.size());
+
+        for (String id : ids) {
+            NaturalKeyLock lock = new NaturalKeyLock(id);
+            tx.createObject(lock, scope);
+            result.add(lock);
+        }
+
+        tx.flush(scope);
+
+        return result;
+    }
+
+    /**
+     * Create the object or update the single object matching its natural key. Concurrent calls
+     * for the same key may both create the object unless the key is locked.
+     *
+     * @param <T> type of object
+     * @param client client to use
+     * @param obj object to write, its id is set to the id of the matching object
+     * @param fields natural key fields
+     * @throws IOException if more than one object matches or the operation fails
+     */
+    @SuppressWarnings("unchecked")
+    static <T extends PassEntity> void write(PassClient client, T obj, String... fields) throws IOException {
+        Class<T> type = (Class<T>) Hibernate.getClass(obj);
+        PassClientSelector<T> selector = new PassClientSelector<>(type, 0, 2, null, null);
+        selector.setFilter(get_filter(type, obj, fields));
+
+        List<T> found = client.selectObjects(selector).getObjects();
+
+        if (found.size() > 1) {
+            throw new IOException("Natural key " + String.join(",", fields) + " matches more than one "
+                    + type.getSimpleName() + ": " + selector.getFilter());
+        }
+
+        if (found.isEmpty()) {
+            obj.setId(null);
+            client.createObject(obj);
+        } else {
+            obj.setId(found.get(0).getId());
+            client.updateObject(obj);
+        }
+    }
+
+    private static PassFilter get_filter(Class<? extends PassEntity> type, PassEntity obj, String[] fields)
+            throws IOException {
+        if (fields.length == 0) {
+            throw new IOException("No natural key fields given for " + type.getSimpleName());
+        }
+
+        PassFilter[] filters = new PassFilter[fields.length];
+
+        try {
+            for (int i = 0; i < fields.length; i++) {
+                PassFilter.Field field = PassFilter.field(type, fields[i]);
+                Object value = get_value(obj, fields[i]);
+
+                if (value instanceof Collection) {
+                    filters[i] = PassFilter.or(((Collection<?>) value).stream().map(field::hasMember)
+                            .toArray(PassFilter[]::new));
+                } else {
+                    filters[i] = field.eq(value);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid natural key for " + type.getSimpleName() + ": " + e.getMessage(), e);
+        }
+
+        return filters.length == 1 ? filters[0] : PassFilter.and(filters);
+    }
+
+    private static Object get_value(PassEntity obj, String field) throws IOException {
+        String getter = "get" + Character.toUpperCase(field.charAt(0)) + field.substring(1);
+        Object value;
+
+        try {
+            Method method = obj.getClass().getMethod(getter);
+            value = method.invoke(obj);
+        } catch (NoSuchMethodException | IllegalAccessException | InvocationTargetException e) {
+            throw new IOException("Cannot read natural key field " + field + " of "
+                    + Hibernate.getClass(obj).getSimpleName(), e);
+        }
+
+        if (value == null || (value instanceof Collection && ((Collection<?>) value).isEmpty())) {
+            throw new IOException("Natural key field " + field + " of " + Hibernate.getClass(obj).getSimpleName()
+                    + " has no value");
+        }
+
+        return value;
+    }
+
+    private static String lock_id(Class<?> type, String field, Object value) {
+        String key = type.getName() + "\n" + field + "\n" + value;
+
+        return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+}
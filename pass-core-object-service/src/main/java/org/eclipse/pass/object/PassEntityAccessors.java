@@ -0,0 +1,238 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.object;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.yahoo.elide.core.dictionary.EntityDictionary;
+import com.yahoo.elide.core.type.ClassType;
+import com.yahoo.elide.core.type.Type;
+import com.yahoo.elide.jsonapi.models.Data;
+import com.yahoo.elide.jsonapi.models.Relationship;
+import com.yahoo.elide.jsonapi.models.Resource;
+import com.yahoo.elide.jsonapi.models.ResourceIdentifier;
+import org.eclipse.pass.object.model.PassEntity;
+
+/**
+ * Table of precompiled field accessors for the PASS entities bound in an EntityDictionary. The table is
+ * built once per dictionary and used to convert objects to JSON:API resources without looking up
+ * fields reflectively for every value.
+ */
+class PassEntityAccessors {
+    private static final Map<EntityDictionary, PassEntityAccessors> TABLES =
+        Collections.synchronizedMap(new WeakHashMap<>());
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    // Entity names do not depend on the dictionary. Lookups for Hibernate proxy classes are cached too.
+    private static final ClassValue<String> ENTITY_NAMES = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            return EntityDictionary.getEntityName(ClassType.of(type));
+        }
+    };
+
+    private final Map<Class<?>, EntityAccessor> accessors;
+
+    private PassEntityAccessors(EntityDictionary dict) {
+        this.accessors = new ConcurrentHashMap<>();
+
+        for (Type<?> type : dict.getBoundClasses()) {
+            if (type instanceof ClassType) {
+                Class<?> cls = ((ClassType<?>) type).getCls();
+
+                if (PassEntity.class.isAssignableFrom(cls)) {
+                    accessors.put(cls, new EntityAccessor(cls, dict.getAttributes(type),
+                            dict.getRelationships(type)));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param dict dictionary binding the entities
+     * @return accessor table for the dictionary
+     */
+    static PassEntityAccessors of(EntityDictionary dict) {
+        return TABLES.computeIfAbsent(dict, PassEntityAccessors::new);
+    }
+
+    /**
+     * @param type class of an entity
+     * @return JSON:API type name of the entity
+     */
+    static String getEntityName(Class<?> type) {
+        return ENTITY_NAMES.get(type);
+    }
+
+    /**
+     * @param type class of an entity
+     * @param name name of a field
+     * @return whether the name is an attribute or relationship of the entity
+     */
+    boolean hasField(Class<?> type, String name) {
+        EntityAccessor accessor = get_accessor(type);
+
+        return accessor.attributes.containsKey(name) || accessor.relationships.containsKey(name);
+    }
+
+    /**
+     * @param obj object to convert
+     * @param fields names of the attributes and relationships to include or null for all
+     * @return resource representing the object
+     */
+    Resource toResource(PassEntity obj, Set<String> fields) {
+        EntityAccessor accessor = get_accessor(obj.getClass());
+
+        Resource resource = new Resource(accessor.name, obj.getId() == null ? "-1" : obj.getId().toString());
+
+        Map<String, Relationship> relationships = new HashMap<>(2 * accessor.relationships.size());
+
+        for (Map.Entry<String, MethodHandle> entry : accessor.relationships.entrySet()) {
+            String name = entry.getKey();
+
+            if (fields != null && !fields.contains(name)) {
+                continue;
+            }
+
+            Object value = get(entry.getValue(), obj, name);
+            Data<Resource> data;
+
+            if (value == null) {
+                data = new Data<>((Resource) null);
+            } else if (value instanceof List) {
+                List<?> list = (List<?>) value;
+                List<Resource> targets = new ArrayList<>(list.size());
+
+                for (Object o : list) {
+                    targets.add(to_identifier(PassEntity.class.cast(o)));
+                }
+
+                data = new Data<>(targets);
+            } else if (value instanceof PassEntity) {
+                data = new Data<>(to_identifier(PassEntity.class.cast(value)));
+            } else {
+                throw new RuntimeException("Unknown relationship target: " + value);
+            }
+
+            relationships.put(name, new Relationship(null, data));
+        }
+
+        resource.setRelationships(relationships);
+
+        Map<String, Object> attributes = new HashMap<>(2 * accessor.attributes.size());
+
+        for (Map.Entry<String, MethodHandle> entry : accessor.attributes.entrySet()) {
+            String name = entry.getKey();
+
+            if (fields != null && !fields.contains(name)) {
+                continue;
+            }
+
+            attributes.put(name, get(entry.getValue(), obj, name));
+        }
+
+        resource.setAttributes(attributes);
+
+        return resource;
+    }
+
+    private static Resource to_identifier(PassEntity entity) {
+        return new ResourceIdentifier(getEntityName(entity.getClass()), entity.getId().toString()).castToResource();
+    }
+
+    private static Object get(MethodHandle getter, Object obj, String name) {
+        try {
+            return (Object) getter.invokeExact(obj);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to get field " + name, e);
+        }
+    }
+
+    // Subclasses such as Hibernate proxies use the accessor of the entity they extend
+    private EntityAccessor get_accessor(Class<?> type) {
+        EntityAccessor result = accessors.get(type);
+
+        if (result == null) {
+            for (Class<?> cls = type.getSuperclass(); cls != null && result == null; cls = cls.getSuperclass()) {
+                result = accessors.get(cls);
+            }
+
+            if (result == null) {
+                throw new IllegalArgumentException("Not a bound PASS entity: " + type.getName());
+            }
+
+            accessors.putIfAbsent(type, result);
+        }
+
+        return result;
+    }
+
+    private static class EntityAccessor {
+        private final String name;
+        private final Map<String, MethodHandle> attributes;
+        private final Map<String, MethodHandle> relationships;
+
+        EntityAccessor(Class<?> type, List<String> attributes, List<String> relationships) {
+            this.name = getEntityName(type);
+            this.attributes = getters(type, attributes);
+            this.relationships = getters(type, relationships);
+        }
+
+        private static Map<String, MethodHandle> getters(Class<?> type, List<String> names) {
+            // Preserve the dictionary order so resources are built the same way every time
+            Map<String, MethodHandle> result = new LinkedHashMap<>();
+
+            for (String name : names) {
+                result.put(name, getter(type, name));
+            }
+
+            return Collections.unmodifiableMap(result);
+        }
+
+        // Entities use field access so read the field directly as Elide does
+        private static MethodHandle getter(Class<?> type, String name) {
+            for (Class<?> cls = type; cls != null; cls = cls.getSuperclass()) {
+                try {
+                    Field field = cls.getDeclaredField(name);
+                    MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(cls, MethodHandles.lookup());
+
+                    return lookup.unreflectGetter(field).asType(GETTER_TYPE);
+                } catch (NoSuchFieldException e) {
+                    // Check the superclass
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Cannot access field " + name + " of " + cls.getName(), e);
+                }
+            }
+
+            throw new IllegalStateException("No field " + name + " in " + type.getName());
+        }
+    }
+}
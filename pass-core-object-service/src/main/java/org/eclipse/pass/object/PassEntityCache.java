@@ -0,0 +1,628 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.object;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.eclipse.pass.object.model.Funder;
+import org.eclipse.pass.object.model.Journal;
+import org.eclipse.pass.object.model.PassEntity;
+import org.eclipse.pass.object.model.Policy;
+import org.eclipse.pass.object.model.Publisher;
+import org.eclipse.pass.object.model.Repository;
+import org.hibernate.Hibernate;
+
+/**
+ * Cache of PASS objects by type and id. Only types which have been configured are cached.
+ * Each type has its own time to live and maximum number of entries, with the least recently used
+ * entries evicted first.
+ *
+ * A cached object is put with the graph of objects reachable from it, such as the Policy of a Funder and
+ * the Repositories of that Policy. Invalidating any object of the graph also removes the cached objects
+ * which contain it.
+ *
+ * The cache has a version which changes whenever an object which may be part of a cached graph is
+ * invalidated. An object loaded while a change was being committed can be put with the version seen before
+ * it was loaded, so that it is not cached if the change was invalidated in the meantime.
+ *
+ * Listeners are told about each object invalidated, whether or not it may be cached here, so that the
+ * invalidation can be sent to caches elsewhere. Invalidations received from elsewhere are applied with
+ * {@link #invalidateLocally(Class, Long)} so that they are not sent again.
+ *
+ * The default cache holds reference types which are read often and change rarely. It is used by
+ * {@link CachingPassClient} and invalidated by a {@link PassEntityCacheInvalidator} when changes to objects
+ * are committed.
+ *
+ * When bound to a registry, the counter pass.client.entity.cache counts lookups tagged by type and a result of
+ * hit or miss, the counter pass.client.entity.cache.evictions counts objects which expired or did not fit, and
+ * the gauge pass.client.entity.cache.size reports the number of cached objects of each type. Only the types
+ * configured when the cache is bound are reported.
+ */
+public class PassEntityCache implements MeterBinder {
+    /**
+     * Default time an object stays in the cache.
+     */
+    public static final Duration DEFAULT_TTL = Duration.ofMinutes(5);
+
+    /**
+     * Default maximum number of objects of a type in the cache.
+     */
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    static final String LOOKUPS = "pass.client.entity.cache";
+    static final String EVICTIONS = "pass.client.entity.cache.evictions";
+    static final String SIZE = "pass.client.entity.cache.size";
+
+    private static final PassEntityCache DEFAULT = new PassEntityCache();
+
+    static {
+        DEFAULT.configure(Funder.class, DEFAULT_TTL, DEFAULT_MAX_SIZE);
+        DEFAULT.configure(Journal.class, DEFAULT_TTL, DEFAULT_MAX_SIZE);
+        DEFAULT.configure(Policy.class, DEFAULT_TTL, DEFAULT_MAX_SIZE);
+        DEFAULT.configure(Publisher.class, DEFAULT_TTL, DEFAULT_MAX_SIZE);
+        DEFAULT.configure(Repository.class, DEFAULT_TTL, DEFAULT_MAX_SIZE);
+    }
+
+    private final Map<Class<?>, Region> regions;
+    private final List<Listener> listeners;
+    private final AtomicLong version;
+
+    // Types whose objects may be part of a cached graph
+    private final Set<Class<?>> contained;
+
+    // Cached objects by each object of their graph other than themselves. Only changed within compute.
+    private final Map<Key, Set<Key>> dependents;
+
+    /**
+     * Told about objects which changed.
+     */
+    @FunctionalInterface
+    public interface Listener {
+        /**
+         * @param type Type of object
+         * @param id Identifier of object
+         */
+        void invalidated(Class<?> type, Long id);
+    }
+
+    /**
+     * Statistics of the cache of a type.
+     */
+    public static class Statistics {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final int size;
+
+        Statistics(long hits, long misses, long evictions, int size) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.size = size;
+        }
+
+        /**
+         * @return Number of lookups which found an object
+         */
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * @return Number of lookups which did not find an object
+         */
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * @return Number of objects removed because they expired or the cache was full
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * @return Number of objects in the cache
+         */
+        public int getSize() {
+            return size;
+        }
+    }
+
+    private static class Key {
+        final Class<?> type;
+        final Long id;
+
+        Key(Class<?> type, Long id) {
+            this.type = type;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+
+            Key other = (Key) obj;
+
+            return type == other.type && id.equals(other.id);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, id);
+        }
+    }
+
+    private static class Entry {
+        final PassEntity obj;
+        final Set<Key> members;
+        final long expires;
+
+        Entry(PassEntity obj, Set<Key> members, long expires) {
+            this.obj = obj;
+            this.members = members;
+            this.expires = expires;
+        }
+    }
+
+    private class Region {
+        final Class<?> type;
+        final long ttl;
+        final LinkedHashMap<Long, Entry> entries;
+        long hits;
+        long misses;
+        long evictions;
+
+        Region(Class<?> type, Duration ttl, int max_size) {
+            this.type = type;
+            this.ttl = ttl.toNanos();
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                    if (size() > max_size) {
+                        evictions++;
+                        forget(new Key(type, eldest.getKey()), eldest.getValue().members);
+                        return true;
+                    }
+
+                    return false;
+                }
+            };
+        }
+
+        // Called while synchronized on the region
+        void remove(Long id) {
+            Entry entry = entries.remove(id);
+
+            if (entry != null) {
+                forget(new Key(type, id), entry.members);
+            }
+        }
+    }
+
+    /**
+     * Create an empty cache with no types configured.
+     */
+    public PassEntityCache() {
+        this.regions = new ConcurrentHashMap<>();
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.version = new AtomicLong();
+        this.contained = ConcurrentHashMap.newKeySet();
+        this.dependents = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @param listener Listener to tell about invalidated objects
+     */
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * @param listener Listener to remove
+     */
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * @return Cache shared by default which holds reference types
+     */
+    public static PassEntityCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Cache objects of a type. Any objects of the type already in the cache are removed.
+     *
+     * @param type Type of object
+     * @param ttl Time an object stays in the cache
+     * @param max_size Maximum number of objects of the type in the cache
+     */
+    public void configure(Class<? extends PassEntity> type, Duration ttl, int max_size) {
+        add_contained(type);
+        version.incrementAndGet();
+
+        Region old = regions.put(type, new Region(type, ttl, max_size));
+
+        if (old != null) {
+            clear(old);
+        }
+    }
+
+    // Add the types of the objects which may be reachable from an object of the type
+    private void add_contained(Class<?> type) {
+        if (!contained.add(type)) {
+            return;
+        }
+
+        for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+
+                Class<?> field_type = field.getType();
+
+                if (Collection.class.isAssignableFrom(field_type)
+                        && field.getGenericType() instanceof ParameterizedType) {
+                    Type[] args = ((ParameterizedType) field.getGenericType()).getActualTypeArguments();
+                    field_type = args.length == 1 && args[0] instanceof Class ? (Class<?>) args[0] : Object.class;
+                }
+
+                if (PassEntity.class.isAssignableFrom(field_type)) {
+                    add_contained(field_type);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param type Type of object
+     * @return Whether objects of the type are cached
+     */
+    public boolean isCached(Class<?> type) {
+        return regions.containsKey(type);
+    }
+
+    /**
+     * @param type Type of object
+     * @return Whether objects of the type may be part of the graph of a cached object
+     */
+    public boolean isContained(Class<?> type) {
+        return contained.contains(type);
+    }
+
+    /**
+     * @param <T> Type of object
+     * @param type Type of object
+     * @param id Identifier of object
+     * @return Cached object or null if it is not cached
+     */
+    public <T extends PassEntity> T get(Class<T> type, Long id) {
+        Region region = regions.get(type);
+
+        if (region == null || id == null) {
+            return null;
+        }
+
+        synchronized (region) {
+            Entry entry = region.entries.get(id);
+
+            if (entry != null && entry.expires - System.nanoTime() < 0) {
+                region.remove(id);
+                region.evictions++;
+                entry = null;
+            }
+
+            if (entry == null) {
+                region.misses++;
+                return null;
+            }
+
+            region.hits++;
+            return type.cast(entry.obj);
+        }
+    }
+
+    /**
+     * Add an object to the cache if its type is cached.
+     *
+     * @param <T> Type of object
+     * @param type Type of object
+     * @param obj Object to cache
+     */
+    public <T extends PassEntity> void put(Class<T> type, T obj) {
+        put(type, obj, -1);
+    }
+
+    /**
+     * @param type Type of object
+     * @return Current version of the cache or -1 if the type is not cached
+     */
+    public long getVersion(Class<?> type) {
+        return regions.containsKey(type) ? version.get() : -1;
+    }
+
+    /**
+     * Add an object to the cache if its type is cached and no object which may be part of a cached graph
+     * has been invalidated since the given version was returned by {@link #getVersion(Class)}. The objects
+     * reachable from the object must not change while it is cached.
+     *
+     * @param <T> Type of object
+     * @param type Type of object
+     * @param obj Object to cache
+     * @param version Version of the type before the object was loaded or -1 to always add the object
+     */
+    public <T extends PassEntity> void put(Class<T> type, T obj, long version) {
+        Region region = regions.get(type);
+
+        if (region == null || obj.getId() == null) {
+            return;
+        }
+
+        Key key = new Key(type, obj.getId());
+        Set<Key> members = get_members(obj);
+
+        // Registered before the version is checked, so an invalidation either sees them or changes the version
+        remember(key, members);
+
+        synchronized (region) {
+            if (version == -1 || version == this.version.get()) {
+                Entry old = region.entries.put(obj.getId(), new Entry(obj, members, System.nanoTime() + region.ttl));
+
+                if (old != null) {
+                    Set<Key> stale = new HashSet<>(old.members);
+                    stale.removeAll(members);
+                    forget(key, stale);
+                }
+            } else {
+                Entry current = region.entries.get(obj.getId());
+                Set<Key> unused = new HashSet<>(members);
+
+                if (current != null) {
+                    unused.removeAll(current.members);
+                }
+
+                forget(key, unused);
+            }
+        }
+    }
+
+    // Collect the keys of the objects reachable from the object other than itself
+    private static Set<Key> get_members(PassEntity obj) {
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<Key> result = new HashSet<>();
+
+        collect_members(obj, visited, result);
+        result.remove(new Key(Hibernate.getClass(obj), obj.getId()));
+
+        return result;
+    }
+
+    private static void collect_members(Object obj, Set<Object> visited, Set<Key> result) {
+        if (!visited.add(obj)) {
+            return;
+        }
+
+        if (obj instanceof PassEntity && ((PassEntity) obj).getId() != null) {
+            result.add(new Key(Hibernate.getClass(obj), ((PassEntity) obj).getId()));
+        }
+
+        for (Class<?> c = obj.getClass(); c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+
+                Object value;
+
+                try {
+                    field.setAccessible(true);
+                    value = field.get(obj);
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException("Cannot read " + field, e);
+                }
+
+                if (value instanceof Collection) {
+                    for (Object o : (Collection<?>) value) {
+                        if (o instanceof PassEntity) {
+                            collect_members(o, visited, result);
+                        }
+                    }
+                } else if (value instanceof PassEntity) {
+                    collect_members(value, visited, result);
+                }
+            }
+        }
+    }
+
+    private void remember(Key root, Set<Key> members) {
+        for (Key member : members) {
+            dependents.compute(member, (k, roots) -> {
+                Set<Key> result = roots == null ? new HashSet<>() : roots;
+                result.add(root);
+                return result;
+            });
+        }
+    }
+
+    private void forget(Key root, Set<Key> members) {
+        for (Key member : members) {
+            dependents.computeIfPresent(member, (k, roots) -> {
+                roots.remove(root);
+                return roots.isEmpty() ? null : roots;
+            });
+        }
+    }
+
+    /**
+     * Remove an object from the cache and tell the listeners.
+     *
+     * @param type Type of object
+     * @param id Identifier of object
+     */
+    public void invalidate(Class<?> type, Long id) {
+        if (id != null) {
+            invalidateLocally(type, id);
+            listeners.forEach(l -> l.invalidated(type, id));
+        }
+    }
+
+    /**
+     * Remove an object, and the cached objects which contain it, from the cache without telling the listeners.
+     *
+     * @param type Type of object
+     * @param id Identifier of object
+     * @return Whether objects of the type may be part of a cached graph
+     */
+    public boolean invalidateLocally(Class<?> type, Long id) {
+        if (id == null || !contained.contains(type)) {
+            return false;
+        }
+
+        // Changed first so that an object being put either is removed below or is not cached
+        version.incrementAndGet();
+
+        Region region = regions.get(type);
+
+        if (region != null) {
+            synchronized (region) {
+                region.remove(id);
+            }
+        }
+
+        Set<Key> roots = dependents.remove(new Key(type, id));
+
+        if (roots != null) {
+            for (Key root : roots) {
+                Region root_region = regions.get(root.type);
+
+                if (root_region != null) {
+                    synchronized (root_region) {
+                        root_region.remove(root.id);
+                    }
+                }
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Remove an object from the cache.
+     *
+     * @param obj Object to remove
+     */
+    public void invalidate(PassEntity obj) {
+        invalidate(Hibernate.getClass(obj), obj.getId());
+    }
+
+    /**
+     * Remove all objects of a type from the cache. The listeners are not told.
+     *
+     * @param type Type of object
+     */
+    public void invalidateAll(Class<?> type) {
+        Region region = regions.get(type);
+
+        if (region != null) {
+            version.incrementAndGet();
+            clear(region);
+        }
+    }
+
+    private void clear(Region region) {
+        synchronized (region) {
+            for (Long id : new ArrayList<>(region.entries.keySet())) {
+                region.remove(id);
+            }
+        }
+    }
+
+    /**
+     * Remove all objects from the cache.
+     */
+    public void invalidateAll() {
+        regions.keySet().forEach(this::invalidateAll);
+    }
+
+    /**
+     * @param type Type of object
+     * @return Statistics of the type or null if it is not cached
+     */
+    public Statistics getStatistics(Class<?> type) {
+        Region region = regions.get(type);
+
+        if (region == null) {
+            return null;
+        }
+
+        synchronized (region) {
+            return new Statistics(region.hits, region.misses, region.evictions, region.entries.size());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Class<?> type : regions.keySet()) {
+            String name = PassEntityAccessors.getEntityName(type);
+
+            FunctionCounter.builder(LOOKUPS, this, c -> c.get_statistic(type, Statistics::getHits))
+                    .tags("type", name, "result", "hit").description("Objects returned from the cache")
+                    .register(registry);
+            FunctionCounter.builder(LOOKUPS, this, c -> c.get_statistic(type, Statistics::getMisses))
+                    .tags("type", name, "result", "miss").description("Objects which had to be loaded")
+                    .register(registry);
+            FunctionCounter.builder(EVICTIONS, this, c -> c.get_statistic(type, Statistics::getEvictions))
+                    .tag("type", name).description("Objects removed because they expired or the cache was full")
+                    .register(registry);
+            Gauge.builder(SIZE, this, c -> c.get_statistic(type, Statistics::getSize))
+                    .tag("type", name).description("Cached objects").register(registry);
+        }
+    }
+
+    private double get_statistic(Class<?> type, ToLongFunction<Statistics> statistic) {
+        Statistics stats = getStatistics(type);
+
+        return stats == null ? 0 : statistic.applyAsLong(stats);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.object;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.eclipse.pass.object.model.PassEntity;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * Invalidate every PASS object in a {@link PassEntityCache} once a change to it is committed. The listener is
+ * registered with Hibernate, so it sees every write whether it is made through the JSON:API, an Elide client,
+ * or the data store directly. The listeners of the cache, such as one which tells other nodes, are told about
+ * every committed object, including objects of types which are not cached.
+ */
+public class PassEntityCacheInvalidator implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+    private static final long serialVersionUID = 1L;
+
+    private final transient PassEntityCache cache;
+
+    /**
+     * @param cache cache to remove objects from
+     */
+    public PassEntityCacheInvalidator(PassEntityCache cache) {
+        this.cache = cache;
+    }
+
+    /**
+     * Use the default cache.
+     */
+    public PassEntityCacheInvalidator() {
+        this(PassEntityCache.getDefault());
+    }
+
+    /**
+     * Listen for the commits of the sessions of the factory.
+     *
+     * @param factory factory of the entity managers used by Elide
+     */
+    public void register(EntityManagerFactory factory) {
+        EventListenerRegistry registry = factory.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    private void invalidate(Object entity) {
+        if (entity instanceof PassEntity) {
+            cache.invalidate((PassEntity) entity);
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        invalidate(event.getEntity());
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        invalidate(event.getEntity());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        invalidate(event.getEntity());
+    }
+
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+        // Nothing changed
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+        // Nothing changed
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+        // Nothing changed
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return PassEntity.class.isAssignableFrom(persister.getMappedClass());
+    }
+}
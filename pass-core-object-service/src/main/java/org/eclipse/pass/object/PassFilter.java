@@ -0,0 +1,358 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.object;
+
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.yahoo.elide.core.Path;
+import com.yahoo.elide.core.dictionary.EntityDictionary;
+import com.yahoo.elide.core.filter.Operator;
+import com.yahoo.elide.core.filter.expression.AndFilterExpression;
+import com.yahoo.elide.core.filter.expression.FilterExpression;
+import com.yahoo.elide.core.filter.expression.OrFilterExpression;
+import com.yahoo.elide.core.filter.predicates.FilterPredicate;
+import com.yahoo.elide.core.type.ClassType;
+import com.yahoo.elide.core.utils.coerce.CoerceUtil;
+import com.yahoo.elide.core.utils.coerce.converters.Serde;
+import org.eclipse.pass.object.model.PassEntity;
+
+/**
+ * A typed filter on PASS entities which can be used instead of an RSQL string.
+ *
+ * Field names are checked against the entity class and values are converted to the type
+ * of the field when the filter is built. Clients which talk to Elide directly turn the filter
+ * into a filter expression without going through RSQL. Other clients use the RSQL form.
+ * For example:
+ *
+ * <pre>
+ * PassFilter filter = PassFilter.and(
+ *     PassFilter.field(Journal.class, "journalName").eq("Nature"),
+ *     PassFilter.field(Journal.class, "publisher.name").isNotNull());
+ * </pre>
+ */
+public abstract class PassFilter {
+    private static final Map<Class<?>, Class<?>> PRIMITIVES = Map.of(boolean.class, Boolean.class,
+            int.class, Integer.class, long.class, Long.class, double.class, Double.class, float.class, Float.class);
+
+    private final Class<? extends PassEntity> type;
+
+    private PassFilter(Class<? extends PassEntity> type) {
+        this.type = type;
+    }
+
+    /**
+     * @return Type of entity the filter applies to
+     */
+    public Class<? extends PassEntity> getType() {
+        return type;
+    }
+
+    /**
+     * @return RSQL form of the filter
+     */
+    public abstract String toRSQL();
+
+    /**
+     * @param dictionary dictionary of the Elide instance which will evaluate the filter
+     * @return Elide form of the filter
+     */
+    public abstract FilterExpression toFilterExpression(EntityDictionary dictionary);
+
+    @Override
+    public String toString() {
+        return toRSQL();
+    }
+
+    /**
+     * Reference a field of an entity. A dotted path such as "journal.journalName" can be
+     * used to reference a field of a related entity.
+     *
+     * @param type Type of entity
+     * @param name Name or dotted path of field
+     * @return field reference
+     * @throws IllegalArgumentException if the field does not exist
+     */
+    public static Field field(Class<? extends PassEntity> type, String name) {
+        return new Field(type, name);
+    }
+
+    /**
+     * @param filters filters on the same type of entity
+     * @return filter matching objects which match all of the filters
+     */
+    public static PassFilter and(PassFilter... filters) {
+        return new Group(true, filters);
+    }
+
+    /**
+     * @param filters filters on the same type of entity
+     * @return filter matching objects which match at least one of the filters
+     */
+    public static PassFilter or(PassFilter... filters) {
+        return new Group(false, filters);
+    }
+
+    /**
+     * Reference to a field of an entity used to build filters.
+     */
+    public static class Field {
+        private final Class<? extends PassEntity> type;
+        private final String name;
+        private final Class<?> value_type;
+
+        private Field(Class<? extends PassEntity> type, String name) {
+            this.type = type;
+            this.name = name;
+            this.value_type = get_value_type(type, name);
+        }
+
+        /**
+         * @param value Value of field
+         * @return filter matching objects which have the value
+         */
+        public PassFilter eq(Object value) {
+            return new Comparison(this, Operator.IN, List.of(value), RSQL.equals(name, to_string(value)));
+        }
+
+        /**
+         * @param values Values of field
+         * @return filter matching objects which have one of the values
+         */
+        public PassFilter in(Object... values) {
+            return new Comparison(this, Operator.IN, Arrays.asList(values), RSQL.in(name, to_strings(values)));
+        }
+
+        /**
+         * @param values Values of field
+         * @return filter matching objects which have none of the values
+         */
+        public PassFilter out(Object... values) {
+            return new Comparison(this, Operator.NOT, Arrays.asList(values), RSQL.out(name, to_strings(values)));
+        }
+
+        /**
+         * @param low Lowest value of field or null for no lower bound
+         * @param high Highest value of field or null for no upper bound
+         * @return filter matching objects which have a value in the inclusive range
+         */
+        public PassFilter range(Object low, Object high) {
+            if (low == null && high == null) {
+                throw new IllegalArgumentException("Range on " + name + " must have at least one bound");
+            }
+
+            PassFilter lower = low == null ? null : new Comparison(this, Operator.GE, List.of(low),
+                    RSQL.greaterThanOrEquals(name, to_string(low)));
+            PassFilter upper = high == null ? null : new Comparison(this, Operator.LE, List.of(high),
+                    RSQL.lessThanOrEquals(name, to_string(high)));
+
+            if (lower == null) {
+                return upper;
+            } else if (upper == null) {
+                return lower;
+            }
+
+            return and(lower, upper);
+        }
+
+        /**
+         * Match a string field against a pattern. The pattern may start and/or end with
+         * a * which matches any characters.
+         *
+         * @param pattern Pattern to match
+         * @return filter matching objects with a value matching the pattern
+         */
+        public PassFilter like(String pattern) {
+            boolean prefix = pattern.length() > 1 && pattern.endsWith("*");
+            boolean suffix = pattern.startsWith("*");
+            String value = pattern.substring(suffix ? 1 : 0, pattern.length() - (prefix ? 1 : 0));
+            Operator op = prefix && suffix ? Operator.INFIX : prefix ? Operator.PREFIX
+                    : suffix ? Operator.POSTFIX : Operator.IN;
+
+            return new Comparison(this, op, List.of(value), RSQL.equals(name, pattern));
+        }
+
+        /**
+         * @return filter matching objects without a value for the field
+         */
+        public PassFilter isNull() {
+            return new Comparison(this, Operator.ISNULL, List.of(), RSQL.isNull(name));
+        }
+
+        /**
+         * @return filter matching objects with a value for the field
+         */
+        public PassFilter isNotNull() {
+            return new Comparison(this, Operator.NOTNULL, List.of(), RSQL.isNotNull(name));
+        }
+
+        /**
+         * @param value Value of field
+         * @return filter matching objects which have the value in the collection of the field
+         */
+        public PassFilter hasMember(Object value) {
+            return new Comparison(this, Operator.HASMEMBER, List.of(value), RSQL.hasMember(name, to_string(value)));
+        }
+
+        private String[] to_strings(Object... values) {
+            if (values.length == 0) {
+                throw new IllegalArgumentException("No values given for " + name);
+            }
+
+            return Arrays.stream(values).map(this::to_string).toArray(String[]::new);
+        }
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private String to_string(Object value) {
+            Object coerced = coerce(value);
+            Serde serde = CoerceUtil.lookup(coerced.getClass());
+
+            return String.valueOf(serde == null ? coerced : serde.serialize(coerced));
+        }
+
+        private Object coerce(Object value) {
+            if (value == null) {
+                throw new IllegalArgumentException("Null value given for " + name + ", use isNull instead");
+            }
+
+            try {
+                return CoerceUtil.coerce(value, value_type);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Value " + value + " is not valid for " + name, e);
+            }
+        }
+    }
+
+    private static class Comparison extends PassFilter {
+        private final String name;
+        private final Operator op;
+        private final List<Object> values;
+        private final String rsql;
+
+        Comparison(Field field, Operator op, List<Object> values, String rsql) {
+            super(field.type);
+            this.name = field.name;
+            this.op = op;
+            this.values = Collections.unmodifiableList(values.stream().map(field::coerce)
+                    .collect(Collectors.toList()));
+            this.rsql = rsql;
+        }
+
+        @Override
+        public String toRSQL() {
+            return rsql;
+        }
+
+        @Override
+        public FilterExpression toFilterExpression(EntityDictionary dictionary) {
+            return new FilterPredicate(new Path(ClassType.of(getType()), dictionary, name), op, values);
+        }
+    }
+
+    private static class Group extends PassFilter {
+        private final boolean and;
+        private final List<PassFilter> filters;
+
+        Group(boolean and, PassFilter... filters) {
+            super(filters.length == 0 ? null : filters[0].getType());
+
+            if (filters.length == 0) {
+                throw new IllegalArgumentException("No filters given");
+            }
+
+            for (PassFilter filter : filters) {
+                if (filter.getType() != getType()) {
+                    throw new IllegalArgumentException("Filters must be on the same type, found "
+                            + getType().getSimpleName() + " and " + filter.getType().getSimpleName());
+                }
+            }
+
+            this.and = and;
+            this.filters = List.of(filters);
+        }
+
+        @Override
+        public String toRSQL() {
+            String[] rsql = filters.stream().map(PassFilter::toRSQL).toArray(String[]::new);
+
+            return and ? RSQL.and(rsql) : RSQL.or(rsql);
+        }
+
+        @Override
+        public FilterExpression toFilterExpression(EntityDictionary dictionary) {
+            FilterExpression result = filters.get(0).toFilterExpression(dictionary);
+
+            for (int i = 1; i < filters.size(); i++) {
+                FilterExpression next = filters.get(i).toFilterExpression(dictionary);
+                result = and ? new AndFilterExpression(result, next) : new OrFilterExpression(result, next);
+            }
+
+            return result;
+        }
+    }
+
+    /**
+     * Follow the path through the entity classes and return the type of the values of the final field.
+     * Collections are followed through to the type of their elements.
+     */
+    private static Class<?> get_value_type(Class<?> type, String path) {
+        Class<?> result = type;
+
+        for (String name : path.split("\\.", -1)) {
+            if (!PassEntity.class.isAssignableFrom(result)) {
+                throw new IllegalArgumentException("Field " + name + " in " + path + " is not on an entity");
+            }
+
+            java.lang.reflect.Field field = find_field(result, name);
+
+            if (field == null) {
+                throw new IllegalArgumentException("No field " + name + " in " + result.getSimpleName()
+                        + " for " + path);
+            }
+
+            result = field.getType();
+
+            if (Collection.class.isAssignableFrom(result)
+                    && field.getGenericType() instanceof ParameterizedType) {
+                result = (Class<?>) ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+            }
+        }
+
+        if (PassEntity.class.isAssignableFrom(result)) {
+            throw new IllegalArgumentException("Field " + path + " is a relationship, use " + path + ".id");
+        }
+
+        return PRIMITIVES.getOrDefault(result, result);
+    }
+
+    private static java.lang.reflect.Field find_field(Class<?> type, String name) {
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (java.lang.reflect.Field field : c.getDeclaredFields()) {
+                if (field.getName().equals(name) && !Modifier.isStatic(field.getModifiers())) {
+                    return field;
+                }
+            }
+        }
+
+        return null;
+    }
+}
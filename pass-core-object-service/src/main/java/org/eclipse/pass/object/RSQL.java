@@ -73,6 +73,58 @@ public class RSQL {
         return comparison_group(name, "=out=", values);
     }
 
+    /**
+     * @param name Name of field
+     * @param value Value of field
+     * @return RSQL expression testing that object has a field greater than the value
+     */
+    public static String greaterThan(String name, String value) {
+        return comparison(name, "=gt=", value);
+    }
+
+    /**
+     * @param name Name of field
+     * @param value Value of field
+     * @return RSQL expression testing that object has a field greater than or equal to the value
+     */
+    public static String greaterThanOrEquals(String name, String value) {
+        return comparison(name, "=ge=", value);
+    }
+
+    /**
+     * @param name Name of field
+     * @param value Value of field
+     * @return RSQL expression testing that object has a field less than or equal to the value
+     */
+    public static String lessThanOrEquals(String name, String value) {
+        return comparison(name, "=le=", value);
+    }
+
+    /**
+     * @param name Name of field
+     * @return RSQL expression testing that object does not have a value for a field
+     */
+    public static String isNull(String name) {
+        return name + "=isnull=true";
+    }
+
+    /**
+     * @param name Name of field
+     * @return RSQL expression testing that object has a value for a field
+     */
+    public static String isNotNull(String name) {
+        return name + "=isnull=false";
+    }
+
+    /**
+     * @param name Name of field which is a collection
+     * @param value Value of field
+     * @return RSQL expression testing that object has the value in a collection field
+     */
+    public static String hasMember(String name, String value) {
+        return comparison(name, "=hasmember=", value);
+    }
+
     private static String group_expressions(String op, String...expressions) {
         StringBuilder result = new StringBuilder();
 
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.object;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.yahoo.elide.ElideSettings;
+import com.yahoo.elide.core.RequestScope;
+import com.yahoo.elide.core.datastore.DataStoreTransaction;
+import com.yahoo.elide.core.request.EntityProjection;
+import com.yahoo.elide.core.security.User;
+import com.yahoo.elide.core.type.ClassType;
+
+/**
+ * Create the RequestScope of each client operation. The parts of a scope which do not change are
+ * looked up once per client. Request ids only need to be unique for logging and tracking transactions
+ * so they are generated without the shared SecureRandom behind UUID.randomUUID(). Projections loading
+ * an object of a type with all of its fields are immutable and shared.
+ */
+class RequestScopeFactory {
+    private static final ClassValue<EntityProjection> PROJECTIONS = new ClassValue<>() {
+        @Override
+        protected EntityProjection computeValue(Class<?> type) {
+            return EntityProjection.builder().type(ClassType.of(type)).build();
+        }
+    };
+
+    private static final ClassValue<String> PATHS = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            return "/" + PassEntityAccessors.getEntityName(type);
+        }
+    };
+
+    private final ElideSettings settings;
+    private final String base_url;
+    private final String api_version;
+    private final User user;
+
+    /**
+     * @param settings settings of Elide
+     * @param user user making requests or null
+     */
+    RequestScopeFactory(ElideSettings settings, User user) {
+        this.settings = settings;
+        this.base_url = settings.getBaseUrl();
+        this.api_version = settings.getDictionary().getApiVersions().iterator().next();
+        this.user = user;
+    }
+
+    /**
+     * @return API version used by requests
+     */
+    String getApiVersion() {
+        return api_version;
+    }
+
+    /**
+     * @param path path of the request
+     * @param tx transaction of the request
+     * @return new scope
+     */
+    RequestScope create(String path, DataStoreTransaction tx) {
+        return new RequestScope(base_url, path, api_version, null, tx, user, null, null, nextRequestId(),
+                settings);
+    }
+
+    /**
+     * @param type entity class
+     * @return shared projection of the type with all fields
+     */
+    static EntityProjection getProjection(Class<?> type) {
+        return PROJECTIONS.get(type);
+    }
+
+    /**
+     * @param type entity class
+     * @param id object id or null for the collection
+     * @return JSON:API path of the object or collection
+     */
+    static String getPath(Class<?> type, Long id) {
+        String path = PATHS.get(type);
+
+        return id == null ? path : path + "/" + id;
+    }
+
+    /**
+     * @return random version 4 UUID from a non-cryptographic source
+     */
+    static UUID nextRequestId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long msb = (random.nextLong() & ~0xF000L) | 0x4000L;
+        long lsb = (random.nextLong() & ~(0xC000L << 48)) | (0x8000L << 48);
+
+        return new UUID(msb, lsb);
+    }
+}
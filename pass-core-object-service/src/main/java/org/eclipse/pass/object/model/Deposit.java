@@ -23,6 +23,7 @@ import javax.persistence.Table;
 
 import com.yahoo.elide.annotation.Include;
 import org.eclipse.pass.object.converter.DepositStatusToStringConverter;
+import org.hibernate.annotations.DynamicUpdate;
 
 /**
  * A Submission can have multiple Deposits, each to a different Repository. This describes a single deposit to a
@@ -34,6 +35,7 @@ import org.eclipse.pass.object.converter.DepositStatusToStringConverter;
 
 @Include
 @Entity
+@DynamicUpdate
 @Table(name = "pass_deposit")
 public class Deposit extends PassEntity {
 
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2022 Johns Hopkins University
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.eclipse.pass.object.model;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import com.yahoo.elide.annotation.Exclude;
+
+/**
+ * Row inserted for a natural key value while an upsert of it is in progress. A concurrent
+ * transaction inserting the same key waits on the primary key until the first one ends, on
+ * this or any other node. The row is deleted before the transaction commits.
+ *
+ * This is not part of the PASS model and is not exposed through the JSON:API.
+ */
+@Exclude
+@Entity
+@Table(name = "pass_natural_key_lock")
+public class NaturalKeyLock {
+
+    /**
+     * Name based UUID of the type, field, and value of the natural key.
+     */
+    @Id
+    private String id;
+
+    /**
+     * NaturalKeyLock constructor
+     */
+    public NaturalKeyLock() {
+    }
+
+    /**
+     * @param id name based UUID of the natural key
+     */
+    public NaturalKeyLock(String id) {
+        this.id = id;
+    }
+
+    /**
+     * @return name based UUID of the natural key
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @param id name based UUID of the natural key
+     */
+    public void setId(String id) {
+        this.id = id;
+    }
+}
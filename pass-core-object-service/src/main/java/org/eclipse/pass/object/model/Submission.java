@@ -31,6 +31,7 @@ import com.yahoo.elide.annotation.Include;
 import org.eclipse.pass.object.converter.AggregatedDepositStatusToStringConverter;
 import org.eclipse.pass.object.converter.SourceToStringConverter;
 import org.eclipse.pass.object.converter.SubmissionStatusToStringConverter;
+import org.hibernate.annotations.DynamicUpdate;
 
 /**
  * Submission model. Contains details of work being submitted, where it is being deposited to, related Grants etc.
@@ -40,6 +41,7 @@ import org.eclipse.pass.object.converter.SubmissionStatusToStringConverter;
 
 @Include
 @Entity
+@DynamicUpdate
 @Table(name = "pass_submission")
 public class Submission extends PassEntity {
 
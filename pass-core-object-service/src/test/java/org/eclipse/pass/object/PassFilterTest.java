@@ -0,0 +1,53 @@
+package org.eclipse.pass.object;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.eclipse.pass.object.model.Grant;
+import org.eclipse.pass.object.model.Journal;
+import org.junit.jupiter.api.Test;
+
+public class PassFilterTest {
+    @Test
+    public void testOperations() {
+        PassFilter.Field name = PassFilter.field(Journal.class, "journalName");
+
+        assertEquals(RSQL.equals("journalName", "value"), name.eq("value").toRSQL());
+        assertEquals(RSQL.in("journalName", "value1", "value2"), name.in("value1", "value2").toRSQL());
+        assertEquals(RSQL.out("journalName", "value1", "value2"), name.out("value1", "value2").toRSQL());
+        assertEquals(RSQL.equals("journalName", "val*"), name.like("val*").toRSQL());
+        assertEquals(RSQL.isNull("journalName"), name.isNull().toRSQL());
+        assertEquals(RSQL.isNotNull("journalName"), name.isNotNull().toRSQL());
+        assertEquals(RSQL.and(RSQL.greaterThanOrEquals("journalName", "a"),
+                RSQL.lessThanOrEquals("journalName", "b")), name.range("a", "b").toRSQL());
+        assertEquals(RSQL.greaterThanOrEquals("journalName", "a"), name.range("a", null).toRSQL());
+        assertEquals(RSQL.hasMember("issns", "value"),
+                PassFilter.field(Journal.class, "issns").hasMember("value").toRSQL());
+    }
+
+    @Test
+    public void testValuesCoerced() {
+        assertEquals(RSQL.in("id", "1", "2"), PassFilter.field(Grant.class, "id").in(1, "2").toRSQL());
+        assertThrows(IllegalArgumentException.class, () -> PassFilter.field(Grant.class, "id").eq("one"));
+    }
+
+    @Test
+    public void testGrouping() {
+        PassFilter a = PassFilter.field(Grant.class, "localKey").eq("a");
+        PassFilter b = PassFilter.field(Grant.class, "pi.lastName").eq("b");
+
+        assertEquals(RSQL.and(a.toRSQL(), b.toRSQL()), PassFilter.and(a, b).toRSQL());
+        assertEquals(RSQL.or(a.toRSQL(), b.toRSQL()), PassFilter.or(a, b).toRSQL());
+        assertThrows(IllegalArgumentException.class, () -> PassFilter.and(a,
+                PassFilter.field(Journal.class, "journalName").eq("c")));
+    }
+
+    @Test
+    public void testBadField() {
+        assertThrows(IllegalArgumentException.class, () -> PassFilter.field(Grant.class, "awardNumbr"));
+        assertThrows(IllegalArgumentException.class, () -> PassFilter.field(Grant.class, "pi"));
+        assertThrows(IllegalArgumentException.class, () -> PassFilter.field(Grant.class, "pi.nope"));
+        assertThrows(IllegalArgumentException.class, () -> PassFilter.field(Grant.class, "localKey.id"));
+        assertThrows(IllegalArgumentException.class, () -> PassFilter.field(Grant.class, "coPis.id").eq(null));
+    }
+}
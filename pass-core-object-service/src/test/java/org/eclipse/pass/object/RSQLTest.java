@@ -12,6 +12,12 @@ public class RSQLTest {
         assertEquals("name=in=('value1','value2')", RSQL.in("name", "value1", "value2"));
         assertEquals("name=out=('value1','value2')", RSQL.out("name", "value1", "value2"));
         assertEquals("name!='value'", RSQL.notEquals("name", "value"));
+        assertEquals("name=gt='value'", RSQL.greaterThan("name", "value"));
+        assertEquals("name=ge='value'", RSQL.greaterThanOrEquals("name", "value"));
+        assertEquals("name=le='value'", RSQL.lessThanOrEquals("name", "value"));
+        assertEquals("name=isnull=true", RSQL.isNull("name"));
+        assertEquals("name=isnull=false", RSQL.isNotNull("name"));
+        assertEquals("name=hasmember='value'", RSQL.hasMember("name", "value"));
     }
 
     @Test
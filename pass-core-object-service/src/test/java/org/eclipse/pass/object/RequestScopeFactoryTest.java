@@ -0,0 +1,36 @@
+package org.eclipse.pass.object;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.UUID;
+
+import org.eclipse.pass.object.model.Grant;
+import org.eclipse.pass.object.model.Submission;
+import org.junit.jupiter.api.Test;
+
+public class RequestScopeFactoryTest {
+    @Test
+    public void testRequestId() {
+        UUID id = RequestScopeFactory.nextRequestId();
+
+        assertEquals(4, id.version());
+        assertEquals(2, id.variant());
+        assertEquals(id, UUID.fromString(id.toString()));
+        assertNotEquals(id, RequestScopeFactory.nextRequestId());
+    }
+
+    @Test
+    public void testPath() {
+        assertEquals("/submission", RequestScopeFactory.getPath(Submission.class, null));
+        assertEquals("/grant/7", RequestScopeFactory.getPath(Grant.class, 7L));
+    }
+
+    @Test
+    public void testProjection() {
+        assertSame(RequestScopeFactory.getProjection(Grant.class), RequestScopeFactory.getProjection(Grant.class));
+        assertEquals(Submission.class, RequestScopeFactory.getProjection(Submission.class).getType()
+                .getUnderlyingClass().get());
+    }
+}